@@ -0,0 +1,285 @@
+package com.lpy.cache;
+
+import com.lpy.utils.RedisOperator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * @Title: 防击穿的旁路缓存加载器
+ *
+ * getOrLoad 读取缓存，未命中时回源加载并写回，针对热点 key 过期时的缓存击穿做了三层保护：
+ * 1. 进程内 single-flight：同一 key 同一时刻只有一个线程回源，其余线程等待同一个结果；
+ * 2. 跨进程互斥：回源前 SET lockKey token NX PX 加锁，未抢到锁的实例轮询缓存等待结果；
+ * 3. 概率提前刷新（XFetch）：越接近过期、回源越慢，越可能提前异步刷新，热点 key 不会真正过期。
+ *    提前刷新不进入 single-flight，未抢到锁时直接放弃，不会让等待首次加载的线程拿到空结果。
+ * 回源结果为 null 时按 negative-ttl 缓存空值，防止不存在的数据反复穿透到数据库。
+ *
+ * 缓存以哈希存储：v 值，d 回源耗时（毫秒），e 逻辑过期时间戳，n 空值标记。
+ */
+@Slf4j
+@Component
+public class RedisCacheLoader {
+
+    private static final String FIELD_VALUE = "v";
+
+    private static final String FIELD_DELTA = "d";
+
+    private static final String FIELD_EXPIRE_AT = "e";
+
+    private static final String FIELD_NEGATIVE = "n";
+
+    private static final String LOCK_SUFFIX = ":lock";
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private RedisOperator redisOperator;
+
+    @Value("${redis.cache-loader.lock-timeout-millis:10000}")
+    private long lockTimeoutMillis;
+
+    @Value("${redis.cache-loader.lock-wait-millis:3000}")
+    private long lockWaitMillis;
+
+    @Value("${redis.cache-loader.lock-poll-millis:50}")
+    private long lockPollMillis;
+
+    @Value("${redis.cache-loader.negative-ttl-seconds:60}")
+    private long negativeTtlSeconds;
+
+    /**
+     * XFetch 参数，越大越倾向于提前刷新，1.0 为论文推荐值
+     */
+    @Value("${redis.cache-loader.beta:1.0}")
+    private double beta;
+
+    @Value("${redis.cache-loader.refresh-threads:4}")
+    private int refreshThreads;
+
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 正在提前刷新的 key，同一 key 同一时刻只提交一个刷新任务
+     */
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    private ThreadPoolExecutor refreshExecutor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNo = new AtomicInteger();
+        // 提前刷新是尽力而为的，队列满时直接丢弃
+        refreshExecutor = new ThreadPoolExecutor(refreshThreads, refreshThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(1000), r -> {
+            Thread thread = new Thread(r, "redis-cache-refresh-" + threadNo.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdown();
+    }
+
+    /**
+     * 读取缓存，未命中时通过 loader 回源并缓存 ttl 秒
+     *
+     * @param key
+     * @param ttl 过期时间（秒）
+     * @param loader 回源函数，返回 null 表示数据不存在
+     * @return 缓存值，数据不存在时为 null
+     */
+    public String getOrLoad(String key, long ttl, Supplier<String> loader) {
+        CachedValue cached = read(key);
+        if (cached != null) {
+            if (!cached.negative && shouldRefreshEarly(cached)) {
+                refreshAsync(key, ttl, loader);
+            }
+            return cached.value;
+        }
+        try {
+            return singleFlight(key, () -> loadWithLock(key, ttl, loader, false)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 删除缓存，下次读取时重新回源
+     *
+     * @param key
+     */
+    public void evict(String key) {
+        redisOperator.del(key);
+    }
+
+    private CompletableFuture<String> singleFlight(String key, Supplier<String> task) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            future.complete(task.get());
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        } finally {
+            inFlight.remove(key, future);
+        }
+        return future;
+    }
+
+    private void refreshAsync(String key, long ttl, Supplier<String> loader) {
+        if (inFlight.containsKey(key) || !refreshing.add(key)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    loadWithLock(key, ttl, loader, true);
+                } catch (Exception e) {
+                    log.warn("提前刷新缓存失败: key={}, error={}", key, e.getMessage());
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 队列已满或已关闭，本次不刷新
+            refreshing.remove(key);
+        }
+    }
+
+    /**
+     * 抢到分布式锁的实例回源；未抢到时，首次加载轮询等待结果，提前刷新则直接放弃
+     */
+    private String loadWithLock(String key, long ttl, Supplier<String> loader, boolean refresh) {
+        String lockKey = key + LOCK_SUFFIX;
+        String token = UUID.randomUUID().toString();
+        Boolean locked = redisTemplate.opsForValue().setIfAbsent(lockKey, token, lockTimeoutMillis, TimeUnit.MILLISECONDS);
+        if (Boolean.TRUE.equals(locked)) {
+            try {
+                if (!refresh) {
+                    // 加锁前可能已有其他实例写回
+                    CachedValue cached = read(key);
+                    if (cached != null) {
+                        return cached.value;
+                    }
+                }
+                return loadAndStore(key, ttl, loader);
+            } finally {
+                redisOperator.deleteIfEquals(Collections.singletonList(lockKey), Collections.singletonList(token));
+            }
+        }
+        if (refresh) {
+            return null;
+        }
+
+        long deadline = System.currentTimeMillis() + lockWaitMillis;
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(lockPollMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            CachedValue cached = read(key);
+            if (cached != null) {
+                return cached.value;
+            }
+        }
+        // 持锁实例迟迟没有写回（可能已宕机），自行回源
+        log.warn("等待缓存加载超时，直接回源: key={}", key);
+        return loadAndStore(key, ttl, loader);
+    }
+
+    private String loadAndStore(String key, long ttl, Supplier<String> loader) {
+        long start = System.currentTimeMillis();
+        String value = loader.get();
+        long now = System.currentTimeMillis();
+        long ttlMillis = TimeUnit.SECONDS.toMillis(value == null ? negativeTtlSeconds : ttl);
+
+        Map<String, String> hash = new HashMap<>();
+        hash.put(FIELD_DELTA, String.valueOf(now - start));
+        hash.put(FIELD_EXPIRE_AT, String.valueOf(now + ttlMillis));
+        if (value == null) {
+            hash.put(FIELD_NEGATIVE, "1");
+        } else {
+            hash.put(FIELD_VALUE, value);
+        }
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection src = (StringRedisConnection) connection;
+            // 事务保证旧字段清理、写入和过期时间一起生效
+            src.multi();
+            src.del(key);
+            src.hMSet(key, hash);
+            src.pExpire(key, ttlMillis);
+            src.exec();
+            return null;
+        });
+        return value;
+    }
+
+    private CachedValue read(String key) {
+        List<Object> fields = redisTemplate.opsForHash().multiGet(key,
+                Arrays.asList(FIELD_VALUE, FIELD_DELTA, FIELD_EXPIRE_AT, FIELD_NEGATIVE));
+        if (fields.get(2) == null) {
+            return null;
+        }
+        CachedValue cached = new CachedValue();
+        cached.value = (String) fields.get(0);
+        cached.delta = fields.get(1) == null ? 0 : Long.parseLong((String) fields.get(1));
+        cached.expireAt = Long.parseLong((String) fields.get(2));
+        cached.negative = fields.get(3) != null;
+        return cached;
+    }
+
+    /**
+     * XFetch：now - delta * beta * ln(rand) >= expireAt 时提前刷新
+     */
+    private boolean shouldRefreshEarly(CachedValue cached) {
+        double random = ThreadLocalRandom.current().nextDouble();
+        return System.currentTimeMillis() - cached.delta * beta * Math.log(random) >= cached.expireAt;
+    }
+
+    private static final class CachedValue {
+
+        private String value;
+
+        private long delta;
+
+        private long expireAt;
+
+        private boolean negative;
+    }
+
+}
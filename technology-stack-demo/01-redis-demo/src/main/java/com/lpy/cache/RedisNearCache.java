@@ -0,0 +1,201 @@
+package com.lpy.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * @Title: Redis 本地一级缓存（近端缓存）
+ *
+ * 位于 StringRedisTemplate 之前的进程内缓存，只对配置的 key 前缀生效：
+ * 1. 容量有界，超出 maxSize 时按 LRU 淘汰；
+ * 2. 每个条目有 TTL，过期后重新回源 Redis，保证陈旧读的时间上限；
+ * 3. 通过 invalidate 失效，由 keyspace 通知或本地写操作触发。
+ *
+ * 为避免"回源读到旧值 -> 失效通知先到 -> 旧值写入缓存"的竞态，
+ * 回源前先为 key 放入占位条目，写入缓存时若该 key 的条目已不是这个占位（被失效、淘汰或清空），
+ * 则放弃缓存本次结果；失效只影响对应 key 的回源，其他 key 的并发回源照常缓存。
+ */
+@Slf4j
+public class RedisNearCache {
+
+    /**
+     * 用于缓存 Redis 中不存在的值，避免对不存在的热点 key 反复回源
+     */
+    private static final Object NULL_VALUE = new Object();
+
+    private final long ttlMillis;
+
+    private final String[] prefixes;
+
+    private final Map<String, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder invalidations = new LongAdder();
+
+    public RedisNearCache(int maxSize, long ttlMillis, Collection<String> prefixes) {
+        this.ttlMillis = ttlMillis;
+        this.prefixes = prefixes.toArray(new String[0]);
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 判断 key 是否落在启用了本地缓存的前缀内
+     *
+     * @param key
+     * @return
+     */
+    public boolean isCacheable(String key) {
+        for (String prefix : prefixes) {
+            if (key.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 读取字符串值，未命中时通过 loader 回源 Redis
+     *
+     * @param key
+     * @param loader
+     * @return
+     */
+    public String get(String key, Supplier<String> loader) {
+        return load(key, null, loader);
+    }
+
+    /**
+     * 读取哈希字段，未命中时通过 loader 回源 Redis
+     *
+     * @param key
+     * @param field
+     * @param loader
+     * @return
+     */
+    public String hget(String key, String field, Supplier<String> loader) {
+        return load(key, field, loader);
+    }
+
+    /**
+     * 失效一个 key（包括该 key 下缓存的所有哈希字段）
+     *
+     * @param key
+     */
+    public void invalidate(String key) {
+        Entry removed;
+        synchronized (entries) {
+            removed = entries.remove(key);
+        }
+        if (removed != null) {
+            invalidations.increment();
+        }
+    }
+
+    /**
+     * 清空全部本地缓存，用于通知通道断开等无法确定失效范围的场景
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            invalidations.add(entries.size());
+            entries.clear();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private String load(String key, String field, Supplier<String> loader) {
+        Entry entry = acquire(key);
+        Object cached = field == null ? entry.value : entry.fields.get(field);
+        if (cached != null) {
+            hits.increment();
+            return cached == NULL_VALUE ? null : (String) cached;
+        }
+        misses.increment();
+        String value = loader.get();
+        store(key, entry, field, value);
+        return value;
+    }
+
+    /**
+     * 取出 key 当前的条目，不存在或已过期时放入一个空的占位条目
+     */
+    private Entry acquire(String key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null || entry.expireAt <= System.currentTimeMillis()) {
+                entry = new Entry(System.currentTimeMillis() + ttlMillis);
+                entries.put(key, entry);
+            }
+            return entry;
+        }
+    }
+
+    private void store(String key, Entry entry, String field, String value) {
+        Object cachedValue = value == null ? NULL_VALUE : value;
+        synchronized (entries) {
+            // 回源期间该 key 被失效、淘汰或过期替换，本次结果可能已过时，不写入缓存
+            if (entries.get(key) != entry) {
+                return;
+            }
+            if (field == null) {
+                entry.value = cachedValue;
+            } else {
+                entry.fields.put(field, cachedValue);
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        private final long expireAt;
+
+        private volatile Object value;
+
+        private final Map<String, Object> fields = new ConcurrentHashMap<>();
+
+        private Entry(long expireAt) {
+            this.expireAt = expireAt;
+        }
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.lpy.codec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.IOException;
+
+/**
+ * @Title: 基于 Jackson 的编解码器
+ *
+ * 同一套对象映射，分别输出 JSON 文本、CBOR 或 Smile 二进制格式。
+ * 二进制格式省去了引号、转义和数字的文本表示，通常比 JSON 小 20%~40%，解析也更快。
+ */
+public class JacksonValueCodec implements RedisValueCodec {
+
+    public static final byte JSON_ID = 1;
+
+    public static final byte CBOR_ID = 2;
+
+    public static final byte SMILE_ID = 3;
+
+    private final byte id;
+
+    private final String name;
+
+    private final ObjectMapper objectMapper;
+
+    private JacksonValueCodec(byte id, String name, JsonFactory factory) {
+        this.id = id;
+        this.name = name;
+        this.objectMapper = new ObjectMapper(factory)
+                .registerModule(new JavaTimeModule())
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    public static JacksonValueCodec json() {
+        return new JacksonValueCodec(JSON_ID, "json", new JsonFactory());
+    }
+
+    public static JacksonValueCodec cbor() {
+        return new JacksonValueCodec(CBOR_ID, "cbor", new CBORFactory());
+    }
+
+    public static JacksonValueCodec smile() {
+        return new JacksonValueCodec(SMILE_ID, "smile", new SmileFactory());
+    }
+
+    @Override
+    public byte id() {
+        return id;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public byte[] encode(Object value) throws IOException {
+        return objectMapper.writeValueAsBytes(value);
+    }
+
+    @Override
+    public <T> T decode(byte[] bytes, Class<T> type) throws IOException {
+        return objectMapper.readValue(bytes, type);
+    }
+
+}
@@ -0,0 +1,202 @@
+package com.lpy.codec;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @Title: Redis 值编解码注册表
+ *
+ * 按 key 前缀选择编解码器（最长前缀优先），编码结果超过 compress-threshold 字节时再压缩。
+ * 写入的值带 4 字节格式头：0x00 0xC1 codecId compressorId。0xC1 在 UTF-8 中不可能出现，
+ * 因此没有格式头的值一定是旧的纯字符串，读取时按 UTF-8 字符串（或 JSON）解析，保证向后兼容。
+ */
+@Slf4j
+@Component
+public class RedisCodecRegistry {
+
+    private static final byte MAGIC_0 = 0x00;
+
+    private static final byte MAGIC_1 = (byte) 0xC1;
+
+    private static final int HEADER_LENGTH = 4;
+
+    private static final byte UNCOMPRESSED = 0;
+
+    @Value("${redis.codec.default:json}")
+    private String defaultCodecName;
+
+    /**
+     * 前缀与编解码器映射，格式：prefix=codec，逗号分隔
+     */
+    @Value("${redis.codec.prefixes:}")
+    private List<String> prefixMappings;
+
+    @Value("${redis.codec.compress-threshold:1024}")
+    private int compressThreshold;
+
+    private final Map<Byte, RedisValueCodec> codecsById = new ConcurrentHashMap<>();
+
+    private final Map<String, RedisValueCodec> codecsByName = new ConcurrentHashMap<>();
+
+    private final Map<Byte, RedisValueCompressor> compressors = new ConcurrentHashMap<>();
+
+    private final Map<String, RedisValueCodec> prefixCodecs = new LinkedHashMap<>();
+
+    private RedisValueCodec defaultCodec;
+
+    private RedisValueCompressor compressor;
+
+    @PostConstruct
+    public void init() {
+        register(JacksonValueCodec.json());
+        register(JacksonValueCodec.cbor());
+        register(JacksonValueCodec.smile());
+        register(new DeflateValueCompressor());
+        compressor = compressors.get(DeflateValueCompressor.ID);
+        defaultCodec = requireCodec(defaultCodecName);
+
+        // 按前缀长度倒序，保证最长前缀优先匹配
+        String[] mappings = prefixMappings.stream().map(String::trim).filter(m -> !m.isEmpty()).toArray(String[]::new);
+        Arrays.sort(mappings, (a, b) -> b.indexOf('=') - a.indexOf('='));
+        for (String mapping : mappings) {
+            int idx = mapping.indexOf('=');
+            if (idx <= 0) {
+                throw new IllegalArgumentException("Invalid redis.codec.prefixes entry: " + mapping);
+            }
+            prefixCodecs.put(mapping.substring(0, idx), requireCodec(mapping.substring(idx + 1).trim()));
+        }
+        log.info("Redis值编解码: default={}, prefixes={}, compressThreshold={}", defaultCodecName, prefixMappings, compressThreshold);
+    }
+
+    /**
+     * 注册自定义编解码器（例如 Kryo、Protobuf）
+     *
+     * @param codec
+     */
+    public void register(RedisValueCodec codec) {
+        codecsById.put(codec.id(), codec);
+        codecsByName.put(codec.name(), codec);
+    }
+
+    /**
+     * 注册自定义压缩算法（例如 LZ4、Zstd），并作为写入时使用的压缩算法
+     *
+     * @param valueCompressor
+     */
+    public void register(RedisValueCompressor valueCompressor) {
+        if (valueCompressor.id() == UNCOMPRESSED) {
+            throw new IllegalArgumentException("Compressor id 0 is reserved");
+        }
+        compressors.put(valueCompressor.id(), valueCompressor);
+        compressor = valueCompressor;
+    }
+
+    /**
+     * 按 key 前缀选择编解码器
+     *
+     * @param key
+     * @return
+     */
+    public RedisValueCodec codecFor(String key) {
+        for (Map.Entry<String, RedisValueCodec> entry : prefixCodecs.entrySet()) {
+            if (key.startsWith(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return defaultCodec;
+    }
+
+    public byte[] encode(String key, Object value) {
+        return encode(codecFor(key), value);
+    }
+
+    /**
+     * 使用指定编解码器编码，超过阈值时压缩
+     *
+     * @param codec
+     * @param value
+     * @return 带格式头的字节
+     */
+    public byte[] encode(RedisValueCodec codec, Object value) {
+        try {
+            byte[] payload = codec.encode(value);
+            byte compressorId = UNCOMPRESSED;
+            if (payload.length >= compressThreshold) {
+                byte[] compressed = compressor.compress(payload);
+                if (compressed.length < payload.length) {
+                    payload = compressed;
+                    compressorId = compressor.id();
+                }
+            }
+            byte[] bytes = new byte[HEADER_LENGTH + payload.length];
+            bytes[0] = MAGIC_0;
+            bytes[1] = MAGIC_1;
+            bytes[2] = codec.id();
+            bytes[3] = compressorId;
+            System.arraycopy(payload, 0, bytes, HEADER_LENGTH, payload.length);
+            return bytes;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode redis value with " + codec.name(), e);
+        }
+    }
+
+    /**
+     * 解码，兼容没有格式头的旧字符串值
+     *
+     * @param bytes
+     * @param type
+     * @return
+     */
+    public <T> T decode(byte[] bytes, Class<T> type) {
+        if (bytes == null) {
+            return null;
+        }
+        try {
+            if (!hasHeader(bytes)) {
+                if (type == String.class) {
+                    return type.cast(new String(bytes, StandardCharsets.UTF_8));
+                }
+                return codecsById.get(JacksonValueCodec.JSON_ID).decode(bytes, type);
+            }
+            RedisValueCodec codec = codecsById.get(bytes[2]);
+            if (codec == null) {
+                throw new IllegalStateException("Unknown redis value codec id: " + bytes[2]);
+            }
+            byte[] payload = Arrays.copyOfRange(bytes, HEADER_LENGTH, bytes.length);
+            if (bytes[3] != UNCOMPRESSED) {
+                RedisValueCompressor valueCompressor = compressors.get(bytes[3]);
+                if (valueCompressor == null) {
+                    throw new IllegalStateException("Unknown redis value compressor id: " + bytes[3]);
+                }
+                payload = valueCompressor.decompress(payload);
+            }
+            return codec.decode(payload, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to decode redis value", e);
+        }
+    }
+
+    private RedisValueCodec requireCodec(String name) {
+        RedisValueCodec codec = codecsByName.get(name);
+        if (codec == null) {
+            throw new IllegalArgumentException("Unknown redis value codec: " + name + ", available: " + codecsByName.keySet());
+        }
+        return codec;
+    }
+
+    private static boolean hasHeader(byte[] bytes) {
+        return bytes.length >= HEADER_LENGTH && bytes[0] == MAGIC_0 && bytes[1] == MAGIC_1;
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.lpy.codec;
+
+import java.io.IOException;
+
+/**
+ * @Title: Redis 值编解码器
+ *
+ * 负责对象与字节之间的转换，压缩和格式头由 {@link RedisCodecRegistry} 统一处理。
+ */
+public interface RedisValueCodec {
+
+    /**
+     * 编解码器标识，写入值的格式头中，一经使用不可修改
+     */
+    byte id();
+
+    /**
+     * 配置中使用的名称，例如 json、cbor、smile
+     */
+    String name();
+
+    byte[] encode(Object value) throws IOException;
+
+    <T> T decode(byte[] bytes, Class<T> type) throws IOException;
+
+}
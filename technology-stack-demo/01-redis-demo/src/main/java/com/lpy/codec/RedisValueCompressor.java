@@ -0,0 +1,21 @@
+package com.lpy.codec;
+
+import java.io.IOException;
+
+/**
+ * @Title: Redis 值压缩算法
+ *
+ * 编码后超过阈值的值才会压缩，压缩后没有变小则按原样存储。
+ */
+public interface RedisValueCompressor {
+
+    /**
+     * 压缩算法标识，写入值的格式头中，一经使用不可修改，0 保留表示未压缩
+     */
+    byte id();
+
+    byte[] compress(byte[] bytes) throws IOException;
+
+    byte[] decompress(byte[] bytes) throws IOException;
+
+}
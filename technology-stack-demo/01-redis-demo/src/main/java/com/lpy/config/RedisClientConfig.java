@@ -0,0 +1,143 @@
+package com.lpy.config;
+
+import com.lpy.metrics.RedisClientMetrics;
+import io.lettuce.core.ClientOptions;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.data.redis.ClientResourcesBuilderCustomizer;
+import org.springframework.boot.autoconfigure.data.redis.LettuceClientConfigurationBuilderCustomizer;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.connection.lettuce.LettuceConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettucePoolingClientConfiguration;
+
+/**
+ * @Title: Lettuce 客户端调优
+ *
+ * 在 Spring Boot 默认配置（spring.redis.*、spring.redis.lettuce.pool.*）的基础上补充：
+ * 1. 连接方式：shared / dedicated / pooled，见 {@link RedisConnectionMode}；
+ * 2. IO 线程（netty event loop）和计算线程数；
+ * 3. 断线自动重连，以及断线期间缓冲命令的上限，超过上限直接失败，避免内存被积压的命令撑爆；
+ * 4. pipeline 按 pipeline-flush-size 批量刷出，减少逐条写 socket 的系统调用；
+ * 5. 连接池和在途命令数指标，见 {@link RedisClientMetrics}。
+ */
+@Slf4j
+@Configuration
+public class RedisClientConfig {
+
+    /**
+     * IO 线程数，0 表示使用 Lettuce 默认值（CPU 核数，至少 2）
+     */
+    @Value("${redis.client.io-threads:0}")
+    private int ioThreads;
+
+    /**
+     * 计算线程数（事件分发、响应式回调），0 表示使用 Lettuce 默认值
+     */
+    @Value("${redis.client.computation-threads:0}")
+    private int computationThreads;
+
+    @Value("${redis.client.auto-reconnect:true}")
+    private boolean autoReconnect;
+
+    /**
+     * 每条连接排队（含断线期间缓冲）的最大命令数
+     */
+    @Value("${redis.client.request-queue-size:10000}")
+    private int requestQueueSize;
+
+    /**
+     * 断线时的行为：DEFAULT（开启自动重连时缓冲，否则拒绝）、ACCEPT_COMMANDS、REJECT_COMMANDS
+     */
+    @Value("${redis.client.disconnected-behavior:DEFAULT}")
+    private ClientOptions.DisconnectedBehavior disconnectedBehavior;
+
+    @Bean
+    public ClientResourcesBuilderCustomizer redisClientResourcesCustomizer() {
+        return builder -> {
+            if (ioThreads > 0) {
+                builder.ioThreadPoolSize(ioThreads);
+            }
+            if (computationThreads > 0) {
+                builder.computationThreadPoolSize(computationThreads);
+            }
+        };
+    }
+
+    @Bean
+    public LettuceClientConfigurationBuilderCustomizer redisClientOptionsCustomizer() {
+        return builder -> {
+            // 在 Spring Boot 生成的选项（集群拓扑刷新、连接超时、命令超时）上修改
+            ClientOptions options = builder.build().getClientOptions().orElseGet(ClientOptions::create);
+            builder.clientOptions(options.mutate()
+                    .autoReconnect(autoReconnect)
+                    .requestQueueSize(requestQueueSize)
+                    .disconnectedBehavior(disconnectedBehavior)
+                    .build());
+        };
+    }
+
+    /**
+     * 连接池配置开启 JMX 并使用固定的名称前缀，连接池指标通过 JMX 读取
+     */
+    @Bean
+    public LettuceClientConfigurationBuilderCustomizer redisPoolMetricsCustomizer() {
+        return builder -> {
+            if (builder instanceof LettucePoolingClientConfiguration.LettucePoolingClientConfigurationBuilder) {
+                GenericObjectPoolConfig<?> poolConfig = ((LettucePoolingClientConfiguration) builder.build()).getPoolConfig().clone();
+                poolConfig.setJmxEnabled(true);
+                poolConfig.setJmxNameBase(RedisClientMetrics.POOL_JMX_NAME_BASE);
+                poolConfig.setJmxNamePrefix(RedisClientMetrics.POOL_JMX_NAME_PREFIX);
+                ((LettucePoolingClientConfiguration.LettucePoolingClientConfigurationBuilder) builder).poolConfig(poolConfig);
+            }
+        };
+    }
+
+    @Bean
+    public static RedisClientMetrics redisClientMetrics() {
+        return new RedisClientMetrics();
+    }
+
+    /**
+     * 连接工厂初始化后、第一条连接建立前设置连接方式、pipeline 刷出策略并注册命令监听
+     */
+    @Bean
+    public static BeanPostProcessor redisConnectionFactoryPostProcessor(Environment environment,
+                                                                        ObjectProvider<RedisClientMetrics> metrics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof LettuceConnectionFactory) {
+                    customize((LettuceConnectionFactory) bean, environment, metrics.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static void customize(LettuceConnectionFactory factory, Environment environment, RedisClientMetrics metrics) {
+        Binder binder = Binder.get(environment);
+        RedisConnectionMode mode = binder.bind("redis.client.mode", RedisConnectionMode.class)
+                .orElse(RedisConnectionMode.DEDICATED);
+        int flushSize = binder.bind("redis.client.pipeline-flush-size", Integer.class).orElse(0);
+
+        boolean pooled = factory.getClientConfiguration() instanceof LettucePoolingClientConfiguration;
+        if (mode.requiresPool() && !pooled) {
+            log.warn("redis.client.mode={} 需要开启连接池（spring.redis.lettuce.pool.enabled=true），" +
+                    "pipeline 和阻塞命令将每次新建连接", mode);
+        }
+        factory.setShareNativeConnection(mode.shareNativeConnection());
+        if (flushSize > 0) {
+            factory.setPipeliningFlushPolicy(LettuceConnection.PipeliningFlushPolicy.buffered(flushSize));
+        }
+        factory.getRequiredNativeClient().addListener(metrics);
+        log.info("Redis连接方式: mode={}, pooled={}, pipelineFlushSize={}", mode, pooled, flushSize);
+    }
+
+}
@@ -0,0 +1,31 @@
+package com.lpy.config;
+
+/**
+ * Lettuce 连接使用方式，对应 redis.client.mode
+ */
+public enum RedisConnectionMode {
+
+    /**
+     * 所有命令共享一条多路复用连接；pipeline、事务、阻塞命令每次新建独立连接（不开连接池时）
+     */
+    SHARED,
+
+    /**
+     * 普通命令共享一条连接，pipeline、事务、阻塞命令从连接池借用独立连接，互不阻塞。默认方式
+     */
+    DEDICATED,
+
+    /**
+     * 所有命令都从连接池借用连接，适合大值或慢命令较多、单连接带宽成为瓶颈的场景
+     */
+    POOLED;
+
+    public boolean shareNativeConnection() {
+        return this != POOLED;
+    }
+
+    public boolean requiresPool() {
+        return this != SHARED;
+    }
+
+}
@@ -0,0 +1,145 @@
+package com.lpy.config;
+
+import com.lpy.cache.RedisNearCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.SubscriptionListener;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.listener.Topic;
+import org.springframework.util.backoff.BackOffExecution;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Redis 本地一级缓存配置，redis.near-cache.enabled=true 时生效
+ *
+ * 失效依赖 keyspace 通知：订阅 __keyspace@{db}__:{prefix}* ，
+ * 任意客户端修改、删除或过期某个 key 时都会收到通知并失效本地副本。
+ * 未订阅期间的通知会丢失，因此每次订阅成功（包括断线重连后的重新订阅）、取消订阅和订阅失败时都清空本地缓存。
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "redis.near-cache", name = "enabled", havingValue = "true")
+public class RedisNearCacheConfig {
+
+    /**
+     * 需要开启的 keyspace 事件：K 键空间通知，g 通用命令，$ 字符串，h 哈希，x 过期，e 淘汰
+     */
+    private static final String NOTIFY_KEYSPACE_EVENTS = "Kg$hxe";
+
+    @Value("${spring.redis.database:0}")
+    private int database;
+
+    @Value("${redis.near-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${redis.near-cache.ttl-millis:30000}")
+    private long ttlMillis;
+
+    @Value("${redis.near-cache.prefixes:}")
+    private List<String> prefixes;
+
+    @Value("${redis.near-cache.configure-notifications:false}")
+    private boolean configureNotifications;
+
+    @Bean
+    public RedisNearCache redisNearCache() {
+        List<String> enabledPrefixes = new ArrayList<>();
+        for (String prefix : prefixes) {
+            if (!prefix.trim().isEmpty()) {
+                enabledPrefixes.add(prefix.trim());
+            }
+        }
+        log.info("启用Redis本地缓存: prefixes={}, maxSize={}, ttlMillis={}", enabledPrefixes, maxSize, ttlMillis);
+        return new RedisNearCache(maxSize, ttlMillis, enabledPrefixes);
+    }
+
+    /**
+     * 订阅 keyspace 通知，收到通知后失效对应 key；订阅失败时清空本地缓存后再按退避策略重试
+     */
+    @Bean
+    public RedisMessageListenerContainer nearCacheInvalidationContainer(RedisConnectionFactory connectionFactory,
+                                                                        RedisNearCache redisNearCache) {
+        if (configureNotifications) {
+            enableKeyspaceNotifications(connectionFactory);
+        }
+
+        String channelPrefix = "__keyspace@" + database + "__:";
+        List<Topic> topics = new ArrayList<>();
+        for (String prefix : prefixes) {
+            if (!prefix.trim().isEmpty()) {
+                topics.add(new PatternTopic(channelPrefix + prefix.trim() + "*"));
+            }
+        }
+
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer() {
+            @Override
+            protected void handleSubscriptionException(CompletableFuture<Void> future, BackOffExecution backOffExecution,
+                                                       Throwable ex) {
+                log.warn("keyspace通知订阅失败，清空本地缓存: {}", ex.getMessage());
+                redisNearCache.invalidateAll();
+                super.handleSubscriptionException(future, backOffExecution, ex);
+            }
+        };
+        container.setConnectionFactory(connectionFactory);
+        if (!topics.isEmpty()) {
+            container.addMessageListener(new InvalidationListener(redisNearCache, channelPrefix), topics);
+        }
+        return container;
+    }
+
+    private void enableKeyspaceNotifications(RedisConnectionFactory connectionFactory) {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.setConfig("notify-keyspace-events", NOTIFY_KEYSPACE_EVENTS);
+        } catch (Exception e) {
+            // 托管版 Redis 通常禁用 CONFIG 命令，需要在服务端手动开启
+            log.warn("开启keyspace通知失败，请在Redis服务端配置 notify-keyspace-events={}: {}",
+                    NOTIFY_KEYSPACE_EVENTS, e.getMessage());
+        }
+    }
+
+    /**
+     * 容器会把订阅状态回调分发给同时实现了 SubscriptionListener 的监听器
+     */
+    private static final class InvalidationListener implements MessageListener, SubscriptionListener {
+
+        private final RedisNearCache redisNearCache;
+
+        private final String channelPrefix;
+
+        private InvalidationListener(RedisNearCache redisNearCache, String channelPrefix) {
+            this.redisNearCache = redisNearCache;
+            this.channelPrefix = channelPrefix;
+        }
+
+        @Override
+        public void onMessage(Message message, byte[] pattern) {
+            String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+            redisNearCache.invalidate(channel.substring(channelPrefix.length()));
+        }
+
+        @Override
+        public void onPatternSubscribed(byte[] pattern, long count) {
+            log.info("keyspace通知已订阅，清空本地缓存: {}", new String(pattern, StandardCharsets.UTF_8));
+            redisNearCache.invalidateAll();
+        }
+
+        @Override
+        public void onPatternUnsubscribed(byte[] pattern, long count) {
+            log.warn("keyspace通知已取消订阅，清空本地缓存: {}", new String(pattern, StandardCharsets.UTF_8));
+            redisNearCache.invalidateAll();
+        }
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.lpy.limiter;
+
+/**
+ * 限流算法，均在 Redis 端以 Lua 脚本原子执行，时间取 Redis 服务端时间，不受各实例时钟偏差影响
+ */
+public enum RateLimitAlgorithm {
+
+    /**
+     * 滑动窗口日志：精确统计任意窗口内的许可数，每个许可占用一个 ZSET 成员，适合低配额场景
+     */
+    SLIDING_WINDOW_LOG("sliding_window_log"),
+
+    /**
+     * GCRA：只存一个时间戳，平滑限速并允许 limit 个突发，适合高配额场景
+     */
+    GCRA("gcra"),
+
+    /**
+     * 令牌桶：按速率补充令牌，桶容量即突发上限
+     */
+    TOKEN_BUCKET("token_bucket");
+
+    private final String scriptName;
+
+    RateLimitAlgorithm(String scriptName) {
+        this.scriptName = scriptName;
+    }
+
+    public String getScriptName() {
+        return scriptName;
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.lpy.limiter;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 限流结果
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class RateLimitResult {
+
+    /**
+     * 授予的许可数，0 表示被限流
+     */
+    private final long granted;
+
+    /**
+     * 当前剩余可用许可数
+     */
+    private final long remaining;
+
+    /**
+     * 被限流时建议的重试等待时间（毫秒）
+     */
+    private final long retryAfterMillis;
+
+    public boolean isAllowed() {
+        return granted > 0;
+    }
+
+}
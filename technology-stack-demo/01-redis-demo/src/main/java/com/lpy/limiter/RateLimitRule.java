@@ -0,0 +1,65 @@
+package com.lpy.limiter;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * @Title: 限流规则：每 period 最多 limit 个许可
+ *
+ * leaseSize > 1 时 {@link RedisRateLimiter#tryAcquireBatched} 一次向 Redis 预取多个许可在本地消费，
+ * 预取的许可在 leaseMillis 内未用完即作废，因此实际通过量可能略低于 limit，但不会超出。
+ */
+@Getter
+public class RateLimitRule {
+
+    private static final long DEFAULT_LEASE_MILLIS = 100;
+
+    private final RateLimitAlgorithm algorithm;
+
+    private final long limit;
+
+    private final long periodMillis;
+
+    private final int leaseSize;
+
+    private final long leaseMillis;
+
+    private RateLimitRule(RateLimitAlgorithm algorithm, long limit, Duration period, int leaseSize, long leaseMillis) {
+        if (limit <= 0 || period.toMillis() <= 0) {
+            throw new IllegalArgumentException("limit and period must be positive");
+        }
+        if (leaseSize <= 0 || leaseSize > limit) {
+            throw new IllegalArgumentException("leaseSize must be in [1, limit]: " + leaseSize);
+        }
+        this.algorithm = algorithm;
+        this.limit = limit;
+        this.periodMillis = period.toMillis();
+        this.leaseSize = leaseSize;
+        this.leaseMillis = leaseMillis;
+    }
+
+    public static RateLimitRule slidingWindow(long limit, Duration window) {
+        return new RateLimitRule(RateLimitAlgorithm.SLIDING_WINDOW_LOG, limit, window, 1, DEFAULT_LEASE_MILLIS);
+    }
+
+    public static RateLimitRule gcra(long limit, Duration period) {
+        return new RateLimitRule(RateLimitAlgorithm.GCRA, limit, period, 1, DEFAULT_LEASE_MILLIS);
+    }
+
+    public static RateLimitRule tokenBucket(long capacity, Duration refillPeriod) {
+        return new RateLimitRule(RateLimitAlgorithm.TOKEN_BUCKET, capacity, refillPeriod, 1, DEFAULT_LEASE_MILLIS);
+    }
+
+    /**
+     * 开启本地预取：每次从 Redis 预取 leaseSize 个许可，在 leaseMillis 内本地消费
+     *
+     * @param leaseSize
+     * @param leaseMillis
+     * @return 新的规则
+     */
+    public RateLimitRule withLease(int leaseSize, long leaseMillis) {
+        return new RateLimitRule(algorithm, limit, Duration.ofMillis(periodMillis), leaseSize, leaseMillis);
+    }
+
+}
@@ -0,0 +1,212 @@
+package com.lpy.limiter;
+
+import com.lpy.utils.RedisScriptRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Title: 基于 Redis 的分布式限流器
+ *
+ * 每次判定都是一次 EVALSHA 往返，原子完成"读取-计算-写回"，替代 incr + expire 的两次往返和窗口边界误差。
+ * 高吞吐场景使用 {@link #tryAcquireBatched}：一次预取多个许可在本地扣减，
+ * 被限流后在建议的重试时间内直接本地拒绝，绝大多数判定不访问 Redis。
+ * 本地租约每 10 秒清理一次，租约窗口和冷却时间都已过去的 key 会被移除，限流 key 再多也不会无限增长。
+ */
+@Slf4j
+@Component
+public class RedisRateLimiter {
+
+    private static final String KEY_PREFIX = "rate_limit:";
+
+    private static final String SCRIPT_PREFIX = "limiter_";
+
+    private static final long LEASE_SWEEP_INTERVAL_MILLIS = 10_000;
+
+    @Autowired
+    private RedisScriptRegistry scriptRegistry;
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final AtomicLong requestSeq = new AtomicLong();
+
+    private final Map<String, LocalLease> leases = new ConcurrentHashMap<>();
+
+    private final AtomicLong lastLeaseSweep = new AtomicLong(System.currentTimeMillis());
+
+    private final LongAdder allowed = new LongAdder();
+
+    private final LongAdder denied = new LongAdder();
+
+    private final LongAdder redisCalls = new LongAdder();
+
+    private final LongAdder localDecisions = new LongAdder();
+
+    @PostConstruct
+    public void registerScripts() {
+        for (RateLimitAlgorithm algorithm : RateLimitAlgorithm.values()) {
+            scriptRegistry.register(SCRIPT_PREFIX + algorithm.getScriptName(),
+                    new ClassPathResource("lua/limiter/" + algorithm.getScriptName() + ".lua"), List.class);
+        }
+    }
+
+    /**
+     * 申请一个许可，每次判定访问一次 Redis
+     *
+     * @param key 限流对象，例如用户ID、接口名
+     * @param rule
+     * @return
+     */
+    public RateLimitResult tryAcquire(String key, RateLimitRule rule) {
+        return tryAcquire(key, rule, 1);
+    }
+
+    /**
+     * 申请多个许可，许可不足时一个也不授予
+     *
+     * @param key
+     * @param rule
+     * @param permits
+     * @return
+     */
+    public RateLimitResult tryAcquire(String key, RateLimitRule rule, int permits) {
+        RateLimitResult result = execute(key, rule, permits, false);
+        (result.isAllowed() ? allowed : denied).increment();
+        return result;
+    }
+
+    /**
+     * 批量预取模式申请一个许可：本地租约内直接扣减，租约耗尽时从 Redis 预取 rule.leaseSize 个，
+     * 被限流后在 retryAfter 时间内直接本地拒绝
+     *
+     * @param key
+     * @param rule
+     * @return 是否放行
+     */
+    public boolean tryAcquireBatched(String key, RateLimitRule rule) {
+        sweepIdleLeases();
+        LocalLease lease = leases.computeIfAbsent(rule.getAlgorithm().name() + ':' + key, k -> new LocalLease());
+        boolean result = lease.tryAcquire(key, rule);
+        (result ? allowed : denied).increment();
+        return result;
+    }
+
+    public long getAllowedCount() {
+        return allowed.sum();
+    }
+
+    public long getDeniedCount() {
+        return denied.sum();
+    }
+
+    public long getRedisCallCount() {
+        return redisCalls.sum();
+    }
+
+    /**
+     * 未访问 Redis、在本地完成的判定次数
+     */
+    public long getLocalDecisionCount() {
+        return localDecisions.sum();
+    }
+
+    /**
+     * 移除已经失效的租约，由调用线程顺带执行，同一时刻只有一个线程清理。
+     * 清理时恰好有线程持有并续租的租约会被丢弃，续租拿到的许可已在 Redis 扣减，最多少放行不会多放行
+     */
+    private void sweepIdleLeases() {
+        long now = System.currentTimeMillis();
+        long last = lastLeaseSweep.get();
+        if (now - last < LEASE_SWEEP_INTERVAL_MILLIS || !lastLeaseSweep.compareAndSet(last, now)) {
+            return;
+        }
+        leases.values().removeIf(lease -> lease.isIdle(now));
+    }
+
+    private RateLimitResult execute(String key, RateLimitRule rule, int permits, boolean partial) {
+        redisCalls.increment();
+        String partialFlag = partial ? "1" : "0";
+        List<String> keys = Collections.singletonList(KEY_PREFIX + rule.getAlgorithm().getScriptName() + ':' + key);
+        String scriptName = SCRIPT_PREFIX + rule.getAlgorithm().getScriptName();
+        List<Long> values;
+        switch (rule.getAlgorithm()) {
+            case SLIDING_WINDOW_LOG:
+                values = scriptRegistry.execute(scriptName, keys, String.valueOf(rule.getLimit()),
+                        String.valueOf(rule.getPeriodMillis()), String.valueOf(permits),
+                        instanceId + ':' + requestSeq.incrementAndGet(), partialFlag);
+                break;
+            case GCRA:
+                values = scriptRegistry.execute(scriptName, keys, String.valueOf((double) rule.getPeriodMillis() / rule.getLimit()),
+                        String.valueOf(rule.getLimit()), String.valueOf(permits), partialFlag);
+                break;
+            default:
+                values = scriptRegistry.execute(scriptName, keys, String.valueOf(rule.getLimit()),
+                        String.valueOf((double) rule.getLimit() / rule.getPeriodMillis()), String.valueOf(permits), partialFlag);
+        }
+        return new RateLimitResult(values.get(0), values.get(1), values.get(2));
+    }
+
+    /**
+     * 本地租约：预取的许可和被拒绝后的冷却截止时间
+     */
+    private final class LocalLease {
+
+        private final AtomicLong remaining = new AtomicLong();
+
+        private volatile long expireAt;
+
+        private volatile long deniedUntil;
+
+        /**
+         * 预取的许可已过期且不在冷却中，租约不再有状态，下次判定本来就要访问 Redis
+         */
+        private boolean isIdle(long now) {
+            return now >= expireAt && now >= deniedUntil;
+        }
+
+        private boolean tryAcquire(String key, RateLimitRule rule) {
+            long now = System.currentTimeMillis();
+            if (now < deniedUntil) {
+                localDecisions.increment();
+                return false;
+            }
+            if (now < expireAt && remaining.getAndDecrement() > 0) {
+                localDecisions.increment();
+                return true;
+            }
+            synchronized (this) {
+                // 等锁期间可能已被其他线程续租
+                now = System.currentTimeMillis();
+                if (now < expireAt && remaining.getAndDecrement() > 0) {
+                    localDecisions.increment();
+                    return true;
+                }
+                if (now < deniedUntil) {
+                    localDecisions.increment();
+                    return false;
+                }
+                RateLimitResult result = execute(key, rule, rule.getLeaseSize(), true);
+                if (!result.isAllowed()) {
+                    remaining.set(0);
+                    deniedUntil = now + result.getRetryAfterMillis();
+                    return false;
+                }
+                // 当前线程占用一个许可，其余留给本地消费
+                remaining.set(result.getGranted() - 1);
+                expireAt = now + rule.getLeaseMillis();
+                return true;
+            }
+        }
+    }
+
+}
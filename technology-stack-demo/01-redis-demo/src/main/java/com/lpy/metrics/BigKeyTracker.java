@@ -0,0 +1,65 @@
+package com.lpy.metrics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Title: 大 key 统计
+ *
+ * 记录采样到的读取结果大小（字符串为字符数，集合为元素个数），只保留最大的 capacity 个 key。
+ */
+public class BigKeyTracker {
+
+    private final int capacity;
+
+    private final Map<String, Long> sizes;
+
+    public BigKeyTracker(int capacity) {
+        this.capacity = capacity;
+        this.sizes = new HashMap<>(capacity * 2);
+    }
+
+    public synchronized void record(String key, long size) {
+        Long current = sizes.get(key);
+        if (current != null || sizes.size() < capacity) {
+            sizes.put(key, current == null ? size : Math.max(current, size));
+            return;
+        }
+        String minKey = null;
+        long min = Long.MAX_VALUE;
+        for (Map.Entry<String, Long> entry : sizes.entrySet()) {
+            if (entry.getValue() < min) {
+                minKey = entry.getKey();
+                min = entry.getValue();
+            }
+        }
+        if (size > min) {
+            sizes.remove(minKey);
+            sizes.put(key, size);
+        }
+    }
+
+    /**
+     * 最大的 k 个 key，按大小倒序
+     *
+     * @param k
+     * @return
+     */
+    public synchronized Map<String, Long> top(int k) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(sizes.entrySet());
+        entries.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+        Map<String, Long> top = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> entry : entries.subList(0, Math.min(k, entries.size()))) {
+            top.put(entry.getKey(), entry.getValue());
+        }
+        return top;
+    }
+
+    public synchronized void reset() {
+        sizes.clear();
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.lpy.metrics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Title: Space-Saving 热点 key 统计
+ *
+ * 固定只保留 capacity 个计数器：新 key 到来且计数器已满时，替换计数最小的 key，
+ * 新计数为最小计数 + 1，并记录可能的高估误差。出现频率高于 1/capacity 的 key 一定会被保留，
+ * 内存占用与 key 总数无关。调用方只送入采样后的 key，因此这里用简单的同步和线性查找最小值即可。
+ */
+public class HotKeySketch {
+
+    private final int capacity;
+
+    private final Map<String, Counter> counters;
+
+    private long total;
+
+    public HotKeySketch(int capacity) {
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public synchronized void offer(String key) {
+        total++;
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            counter.count++;
+            return;
+        }
+        if (counters.size() < capacity) {
+            counters.put(key, new Counter(1, 0));
+            return;
+        }
+        String minKey = null;
+        Counter min = null;
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            if (min == null || entry.getValue().count < min.count) {
+                minKey = entry.getKey();
+                min = entry.getValue();
+            }
+        }
+        counters.remove(minKey);
+        counters.put(key, new Counter(min.count + 1, min.count));
+    }
+
+    /**
+     * 计数最高的 k 个 key
+     *
+     * @param k
+     * @return key -> {count, error}，按计数倒序
+     */
+    public synchronized Map<String, long[]> top(int k) {
+        List<Map.Entry<String, Counter>> entries = new ArrayList<>(counters.entrySet());
+        entries.sort((a, b) -> Long.compare(b.getValue().count, a.getValue().count));
+        Map<String, long[]> top = new LinkedHashMap<>();
+        for (Map.Entry<String, Counter> entry : entries.subList(0, Math.min(k, entries.size()))) {
+            top.put(entry.getKey(), new long[]{entry.getValue().count, entry.getValue().error});
+        }
+        return top;
+    }
+
+    /**
+     * 已送入的采样总数
+     */
+    public synchronized long total() {
+        return total;
+    }
+
+    public synchronized void reset() {
+        counters.clear();
+        total = 0;
+    }
+
+    private static final class Counter {
+
+        private long count;
+
+        private final long error;
+
+        private Counter(long count, long error) {
+            this.count = count;
+            this.error = error;
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.lpy.metrics;
+
+import io.lettuce.core.event.command.CommandFailedEvent;
+import io.lettuce.core.event.command.CommandListener;
+import io.lettuce.core.event.command.CommandStartedEvent;
+import io.lettuce.core.event.command.CommandSucceededEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.commons.pool2.impl.GenericObjectPoolMXBean;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.DoubleStream;
+
+/**
+ * @Title: Lettuce 连接池与命令队列指标
+ *
+ * redis.commands.inflight：已发出、尚未收到响应的命令数，持续走高说明 Redis 或网络跟不上请求速度；
+ * redis.commands.failed：失败（超时、断线、服务端错误）的命令数；
+ * redis.pool.*：连接池借出、空闲、等待借用的线程数及最大借用等待时间，waiters 大于 0 说明池子偏小。
+ *
+ * 连接池由 Spring Data Redis 按连接类型在内部创建，没有公开访问方式。RedisClientConfig 在连接池配置上
+ * 开启 JMX 并指定名称前缀，每个连接池创建时注册为 {@link GenericObjectPoolMXBean}，这里按名称前缀汇总读取。
+ */
+public class RedisClientMetrics implements MeterBinder, CommandListener {
+
+    /**
+     * 连接池 JMX 名称，由 RedisClientConfig 设置到连接池配置上
+     */
+    public static final String POOL_JMX_NAME_BASE = "org.apache.commons.pool2:type=GenericObjectPool,name=";
+
+    public static final String POOL_JMX_NAME_PREFIX = "redis-lettuce";
+
+    private final AtomicLong inflight = new AtomicLong();
+
+    private final LongAdder failed = new LongAdder();
+
+    private final ObjectName poolNamePattern;
+
+    public RedisClientMetrics() {
+        try {
+            // 同一前缀的第二个及之后的连接池名称后面带序号
+            poolNamePattern = new ObjectName(POOL_JMX_NAME_BASE + POOL_JMX_NAME_PREFIX + "*");
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        inflight.incrementAndGet();
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        inflight.decrementAndGet();
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        inflight.decrementAndGet();
+        failed.increment();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("redis.commands.inflight", inflight, AtomicLong::get)
+                .description("已发送未响应的Redis命令数")
+                .register(registry);
+        FunctionCounter.builder("redis.commands.failed", failed, LongAdder::sum)
+                .description("失败的Redis命令数")
+                .register(registry);
+        poolGauge(registry, "redis.pool.active", "借出的连接数", "NumActive");
+        poolGauge(registry, "redis.pool.idle", "空闲连接数", "NumIdle");
+        poolGauge(registry, "redis.pool.waiters", "等待借用连接的线程数", "NumWaiters");
+        poolGauge(registry, "redis.pool.max", "连接池上限", "MaxTotal");
+        Gauge.builder("redis.pool.borrow.wait.max", this, m -> m.poolAttribute("MaxBorrowWaitTimeMillis").max().orElse(0))
+                .description("最大借用等待时间")
+                .baseUnit("milliseconds")
+                .register(registry);
+    }
+
+    public long getInflight() {
+        return inflight.get();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    private void poolGauge(MeterRegistry registry, String name, String description, String attribute) {
+        Gauge.builder(name, this, m -> m.poolAttribute(attribute).sum())
+                .description(description)
+                .register(registry);
+    }
+
+    /**
+     * 同步和响应式两个连接提供者中按连接类型创建的所有连接池的某个属性，属性名见 {@link GenericObjectPoolMXBean}。
+     * 连接池在首次借用连接时才创建，关闭时注销
+     */
+    private DoubleStream poolAttribute(String attribute) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        DoubleStream.Builder values = DoubleStream.builder();
+        for (ObjectName name : server.queryNames(poolNamePattern, null)) {
+            try {
+                values.add(((Number) server.getAttribute(name, attribute)).doubleValue());
+            } catch (JMException e) {
+                // 查询之后连接池已关闭
+            }
+        }
+        return values.build();
+    }
+
+}
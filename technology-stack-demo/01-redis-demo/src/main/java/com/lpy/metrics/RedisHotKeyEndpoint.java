@@ -0,0 +1,48 @@
+package com.lpy.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 热点 key 与大 key 查询端点：GET /actuator/redishotkeys 查看，DELETE 清空重新统计
+ */
+@Component
+@Endpoint(id = "redishotkeys")
+public class RedisHotKeyEndpoint {
+
+    @Autowired
+    private RedisMetricsAspect metricsAspect;
+
+    @ReadOperation
+    public Map<String, Object> hotKeys() {
+        HotKeySketch hotKeys = metricsAspect.getHotKeys();
+        long total = hotKeys.total();
+        Map<String, Object> hot = new LinkedHashMap<>();
+        for (Map.Entry<String, long[]> entry : hotKeys.top(metricsAspect.getTopK()).entrySet()) {
+            Map<String, Object> stat = new LinkedHashMap<>();
+            stat.put("count", entry.getValue()[0]);
+            stat.put("error", entry.getValue()[1]);
+            stat.put("share", total == 0 ? 0 : (double) entry.getValue()[0] / total);
+            hot.put(entry.getKey(), stat);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("sampled", total);
+        result.put("hotKeys", hot);
+        result.put("bigKeys", metricsAspect.getBigKeys().top(metricsAspect.getTopK()));
+        return result;
+    }
+
+    @DeleteOperation
+    public void reset() {
+        metricsAspect.getHotKeys().reset();
+        metricsAspect.getBigKeys().reset();
+    }
+
+}
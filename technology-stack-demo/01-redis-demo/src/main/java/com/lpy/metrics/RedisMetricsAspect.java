@@ -0,0 +1,122 @@
+package com.lpy.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Title: RedisOperator 命令耗时与热点 key 统计
+ *
+ * 每个 RedisOperator 公共方法按命令名记录 Micrometer 计时器 redis.command（含 p50/p95/p99），
+ * 并按 key-sample-rate 采样 key 送入热点统计，采样到的读取结果同时记录大小用于发现大 key。
+ * 统计结果通过 actuator 端点 /actuator/redishotkeys 查看。
+ */
+@Aspect
+@Component
+public class RedisMetricsAspect {
+
+    private static final String TIMER_NAME = "redis.command";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${redis.metrics.key-sample-rate:0.01}")
+    private double keySampleRate;
+
+    @Value("${redis.metrics.top-k:100}")
+    private int topK;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    private HotKeySketch hotKeys;
+
+    private BigKeyTracker bigKeys;
+
+    @PostConstruct
+    public void init() {
+        hotKeys = new HotKeySketch(topK);
+        bigKeys = new BigKeyTracker(topK);
+    }
+
+    @Around("execution(public * com.lpy.utils.RedisOperator.*(..))")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        String command = joinPoint.getSignature().getName();
+        long start = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+            timers.computeIfAbsent(command, c -> timer(c, "none")).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            sample(joinPoint.getArgs(), result);
+            return result;
+        } catch (Throwable e) {
+            timer(command, e.getClass().getSimpleName()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    public HotKeySketch getHotKeys() {
+        return hotKeys;
+    }
+
+    public BigKeyTracker getBigKeys() {
+        return bigKeys;
+    }
+
+    public int getTopK() {
+        return topK;
+    }
+
+    private Timer timer(String command, String exception) {
+        return Timer.builder(TIMER_NAME)
+                .description("RedisOperator command latency")
+                .tag("command", command)
+                .tag("exception", exception)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    private void sample(Object[] args, Object result) {
+        if (args.length == 0 || ThreadLocalRandom.current().nextDouble() >= keySampleRate) {
+            return;
+        }
+        if (args[0] instanceof String) {
+            String key = (String) args[0];
+            hotKeys.offer(key);
+            long size = sizeOf(result);
+            if (size > 0) {
+                bigKeys.record(key, size);
+            }
+        } else if (args[0] instanceof Collection) {
+            for (Object key : (Collection<?>) args[0]) {
+                if (key instanceof String) {
+                    hotKeys.offer((String) key);
+                }
+            }
+        }
+    }
+
+    private static long sizeOf(Object result) {
+        if (result instanceof String) {
+            return ((String) result).length();
+        }
+        if (result instanceof Map) {
+            return ((Map<?, ?>) result).size();
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        return 0;
+    }
+
+}
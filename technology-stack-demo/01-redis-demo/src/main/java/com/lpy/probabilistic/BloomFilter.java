@@ -0,0 +1,29 @@
+package com.lpy.probabilistic;
+
+import java.util.List;
+
+/**
+ * 分布式布隆过滤器：mightContain 返回 false 时元素一定不存在，常用于防止缓存穿透
+ */
+public interface BloomFilter {
+
+    /**
+     * @return true 表示元素之前一定不存在，false 表示可能已存在
+     */
+    boolean add(String item);
+
+    /**
+     * 批量添加，一次往返
+     */
+    List<Boolean> addAll(List<String> items);
+
+    boolean mightContain(String item);
+
+    /**
+     * 批量判断，一次往返
+     */
+    List<Boolean> mightContainAll(List<String> items);
+
+    void delete();
+
+}
@@ -0,0 +1,273 @@
+package com.lpy.probabilistic;
+
+import cn.hutool.core.lang.hash.MurmurHash;
+import com.lpy.utils.RedisOperator;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @Title: 基于 Redis 位图的可扩展布隆过滤器
+ *
+ * 每一层是一个位图，位数 m 和哈希次数 k 按该层容量和误判率计算，k 个位置由 MurmurHash3 128 位结果双重哈希得到。
+ * 一层写满（插入数达到容量）后追加新层，新层容量翻倍、误判率减半，总误判率收敛于 fpp 的两倍以内。
+ * add/mightContain 的所有 SETBIT/GETBIT 在一个 pipeline 内发送，批量方法一次往返处理多个元素。
+ *
+ * Redis 加载了 RedisBloom 模块时，{@link RedisProbabilisticOperator} 会改用 {@link RedisBloomModuleFilter}。
+ * 同一过滤器的所有层使用相同的 hash tag，集群模式下位于同一节点。
+ */
+public class RedisBloomFilter implements BloomFilter {
+
+    /**
+     * 单个位图最大 2^32 位（512MB）
+     */
+    private static final long MAX_BITS = 1L << 32;
+
+    private static final int GROWTH = 2;
+
+    private static final double FPP_RATIO = 0.5;
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final RedisOperator redisOperator;
+
+    private final String name;
+
+    private final long expectedInsertions;
+
+    private final double fpp;
+
+    private volatile List<Layer> layers = new ArrayList<>();
+
+    RedisBloomFilter(StringRedisTemplate redisTemplate, RedisOperator redisOperator, String name,
+                     long expectedInsertions, double fpp) {
+        if (expectedInsertions <= 0 || fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("expectedInsertions must be positive and fpp in (0, 1)");
+        }
+        this.redisTemplate = redisTemplate;
+        this.redisOperator = redisOperator;
+        this.name = name;
+        this.expectedInsertions = expectedInsertions;
+        this.fpp = fpp;
+        redisTemplate.opsForValue().setIfAbsent(layerCountKey(), "1");
+    }
+
+    /**
+     * 添加元素
+     *
+     * @param item
+     * @return true 表示元素之前一定不存在，false 表示可能已存在
+     */
+    @Override
+    public boolean add(String item) {
+        List<String> items = new ArrayList<>(1);
+        items.add(item);
+        return addAll(items).get(0);
+    }
+
+    /**
+     * 批量添加，一次 pipeline 往返
+     *
+     * @param items
+     * @return 与输入顺序一致，true 表示该元素之前一定不存在
+     */
+    @Override
+    public List<Boolean> addAll(List<String> items) {
+        List<Layer> current = refreshLayers();
+        Layer last = current.get(current.size() - 1);
+        List<long[]> hashes = hashes(items);
+
+        List<Object> bits = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (long[] hash : hashes) {
+                // 旧层只读，新元素只写入最后一层
+                for (int i = 0; i < current.size() - 1; i++) {
+                    getBits(connection, current.get(i), hash);
+                }
+                setBits(connection, last, hash);
+            }
+            return null;
+        });
+
+        List<Boolean> added = new ArrayList<>(items.size());
+        int cursor = 0;
+        long newItems = 0;
+        for (int n = 0; n < items.size(); n++) {
+            boolean inOlderLayer = false;
+            for (int i = 0; i < current.size() - 1; i++) {
+                inOlderLayer |= allSet(bits, cursor, current.get(i).hashCount);
+                cursor += current.get(i).hashCount;
+            }
+            // SETBIT 返回原值，只要有一位原来是 0，说明该元素之前不在最后一层
+            boolean changed = !allSet(bits, cursor, last.hashCount);
+            cursor += last.hashCount;
+            boolean isNew = !inOlderLayer && changed;
+            added.add(isNew);
+            if (isNew) {
+                newItems++;
+            }
+        }
+        if (newItems > 0) {
+            Long count = redisTemplate.opsForValue().increment(countKey(last.index), newItems);
+            if (count != null && count >= last.capacity) {
+                // 多个实例同时扩容时只有一个能成功
+                redisOperator.compareAndSet(layerCountKey(), String.valueOf(current.size()), String.valueOf(current.size() + 1), 0);
+            }
+        }
+        return added;
+    }
+
+    /**
+     * 判断元素是否可能存在
+     *
+     * @param item
+     * @return false 表示一定不存在，true 表示可能存在（误判率约为 fpp）
+     */
+    @Override
+    public boolean mightContain(String item) {
+        List<String> items = new ArrayList<>(1);
+        items.add(item);
+        return mightContainAll(items).get(0);
+    }
+
+    /**
+     * 批量判断，一次 pipeline 往返
+     *
+     * @param items
+     * @return 与输入顺序一致
+     */
+    @Override
+    public List<Boolean> mightContainAll(List<String> items) {
+        List<Layer> current = refreshLayers();
+        List<long[]> hashes = hashes(items);
+        List<Object> bits = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (long[] hash : hashes) {
+                for (Layer layer : current) {
+                    getBits(connection, layer, hash);
+                }
+            }
+            return null;
+        });
+
+        List<Boolean> result = new ArrayList<>(items.size());
+        int cursor = 0;
+        for (int n = 0; n < items.size(); n++) {
+            boolean contains = false;
+            for (Layer layer : current) {
+                contains |= allSet(bits, cursor, layer.hashCount);
+                cursor += layer.hashCount;
+            }
+            result.add(contains);
+        }
+        return result;
+    }
+
+    /**
+     * 删除过滤器的所有层
+     */
+    @Override
+    public void delete() {
+        List<String> keys = new ArrayList<>();
+        for (Layer layer : refreshLayers()) {
+            keys.add(layer.key);
+            keys.add(countKey(layer.index));
+        }
+        keys.add(layerCountKey());
+        redisTemplate.delete(keys);
+        layers = new ArrayList<>();
+    }
+
+    /**
+     * 根据 Redis 中记录的层数同步本地的层参数
+     */
+    private List<Layer> refreshLayers() {
+        String value = redisTemplate.opsForValue().get(layerCountKey());
+        int count = value == null ? 1 : Integer.parseInt(value);
+        List<Layer> current = layers;
+        if (current.size() == count) {
+            return current;
+        }
+        List<Layer> updated = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            updated.add(new Layer(i, layerKey(i), (long) (expectedInsertions * Math.pow(GROWTH, i)), fpp * Math.pow(FPP_RATIO, i)));
+        }
+        layers = updated;
+        return updated;
+    }
+
+    private String layerKey(int index) {
+        return "bloom:{" + name + "}:" + index;
+    }
+
+    private String countKey(int index) {
+        return "bloom:{" + name + "}:count:" + index;
+    }
+
+    private String layerCountKey() {
+        return "bloom:{" + name + "}:layers";
+    }
+
+    private static List<long[]> hashes(List<String> items) {
+        List<long[]> hashes = new ArrayList<>(items.size());
+        for (String item : items) {
+            hashes.add(MurmurHash.hash128(item.getBytes(StandardCharsets.UTF_8)));
+        }
+        return hashes;
+    }
+
+    private static void getBits(RedisConnection connection, Layer layer, long[] hash) {
+        byte[] key = layer.key.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < layer.hashCount; i++) {
+            connection.stringCommands().getBit(key, layer.offset(hash, i));
+        }
+    }
+
+    private static void setBits(RedisConnection connection, Layer layer, long[] hash) {
+        byte[] key = layer.key.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < layer.hashCount; i++) {
+            connection.stringCommands().setBit(key, layer.offset(hash, i), true);
+        }
+    }
+
+    private static boolean allSet(List<Object> bits, int from, int count) {
+        for (int i = from; i < from + count; i++) {
+            if (!Boolean.TRUE.equals(bits.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Layer {
+
+        private final int index;
+
+        private final String key;
+
+        private final long capacity;
+
+        private final long bitSize;
+
+        private final int hashCount;
+
+        private Layer(int index, String key, long capacity, double fpp) {
+            this.index = index;
+            this.key = key;
+            this.capacity = capacity;
+            // m = -n * ln(p) / (ln2)^2，k = m / n * ln2
+            this.bitSize = Math.min(MAX_BITS, (long) Math.ceil(-capacity * Math.log(fpp) / (Math.log(2) * Math.log(2))));
+            this.hashCount = Math.max(1, (int) Math.round((double) bitSize / capacity * Math.log(2)));
+        }
+
+        /**
+         * 双重哈希：h1 + i * h2
+         */
+        private long offset(long[] hash, int i) {
+            return Math.floorMod(hash[0] + i * hash[1], bitSize);
+        }
+    }
+
+}
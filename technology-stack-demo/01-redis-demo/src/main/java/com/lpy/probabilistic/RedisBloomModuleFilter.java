@@ -0,0 +1,79 @@
+package com.lpy.probabilistic;
+
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @Title: 基于 RedisBloom 模块 BF.* 命令的布隆过滤器
+ *
+ * 扩容、哈希计算都在服务端完成，批量操作对应 BF.MADD/BF.MEXISTS，一条命令处理多个元素。
+ */
+public class RedisBloomModuleFilter implements BloomFilter {
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final byte[] key;
+
+    RedisBloomModuleFilter(StringRedisTemplate redisTemplate, String name, long expectedInsertions, double fpp) {
+        this.redisTemplate = redisTemplate;
+        this.key = ("bloom:{" + name + "}").getBytes(StandardCharsets.UTF_8);
+        try {
+            redisTemplate.execute((RedisCallback<Object>) connection -> connection.execute("BF.RESERVE", key,
+                    bytes(String.valueOf(fpp)), bytes(String.valueOf(expectedInsertions)), bytes("EXPANSION"), bytes("2")));
+        } catch (Exception e) {
+            // 过滤器已存在
+            if (e.getMessage() == null || !e.getMessage().contains("exists")) {
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public boolean add(String item) {
+        return addAll(Collections.singletonList(item)).get(0);
+    }
+
+    @Override
+    public List<Boolean> addAll(List<String> items) {
+        return execute("BF.MADD", items);
+    }
+
+    @Override
+    public boolean mightContain(String item) {
+        return mightContainAll(Collections.singletonList(item)).get(0);
+    }
+
+    @Override
+    public List<Boolean> mightContainAll(List<String> items) {
+        return execute("BF.MEXISTS", items);
+    }
+
+    @Override
+    public void delete() {
+        redisTemplate.execute((RedisCallback<Long>) connection -> connection.keyCommands().del(key));
+    }
+
+    private List<Boolean> execute(String command, List<String> items) {
+        byte[][] args = new byte[items.size() + 1][];
+        args[0] = key;
+        for (int i = 0; i < items.size(); i++) {
+            args[i + 1] = bytes(items.get(i));
+        }
+        List<?> replies = (List<?>) redisTemplate.execute((RedisCallback<Object>) connection -> connection.execute(command, args));
+        List<Boolean> result = new ArrayList<>(items.size());
+        for (Object reply : replies) {
+            result.add(reply instanceof Number && ((Number) reply).longValue() == 1L);
+        }
+        return result;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,213 @@
+package com.lpy.probabilistic;
+
+import com.lpy.utils.RedisOperator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.BitFieldSubCommands;
+import org.springframework.data.redis.connection.RedisStringCommands.BitOperation;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * @Title: 概率型数据结构工具类
+ *
+ * 布隆过滤器：成员判断，每个元素约 10 位即可达到 1% 误判率；
+ * HyperLogLog：基数统计，每个 key 固定 12KB，标准误差 0.81%；
+ * 位图：以整数ID为偏移量记录状态，1 亿用户的每日活跃状态只需 12MB。
+ */
+@Slf4j
+@Component
+public class RedisProbabilisticOperator {
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private RedisOperator redisOperator;
+
+    private volatile Boolean bloomModuleAvailable;
+
+    // Bloom Filter（布隆过滤器）
+
+    /**
+     * 获取（不存在则创建）布隆过滤器，Redis 加载了 RedisBloom 模块时使用 BF.*，否则使用位图实现
+     *
+     * @param name
+     * @param expectedInsertions 预计插入数量，超出后自动扩容
+     * @param fpp 期望误判率，例如 0.01
+     * @return
+     */
+    public BloomFilter bloomFilter(String name, long expectedInsertions, double fpp) {
+        if (isBloomModuleAvailable()) {
+            return new RedisBloomModuleFilter(redisTemplate, name, expectedInsertions, fpp);
+        }
+        return new RedisBloomFilter(redisTemplate, redisOperator, name, expectedInsertions, fpp);
+    }
+
+    // HyperLogLog（基数统计）
+
+    /**
+     * 实现命令：PFADD key element [element ...]
+     *
+     * @param key
+     * @param values
+     * @return 基数估计值是否发生变化
+     */
+    public boolean pfadd(String key, String... values) {
+        Long changed = redisTemplate.opsForHyperLogLog().add(key, values);
+        return changed != null && changed > 0;
+    }
+
+    /**
+     * 实现命令：PFCOUNT key [key ...]，多个 key 时返回并集的基数
+     *
+     * @param keys
+     * @return
+     */
+    public long pfcount(String... keys) {
+        return redisTemplate.opsForHyperLogLog().size(keys);
+    }
+
+    /**
+     * 实现命令：PFMERGE destkey sourcekey [sourcekey ...]，例如把每日 UV 合并为每周 UV
+     *
+     * @param destination
+     * @param sourceKeys
+     */
+    public void pfmerge(String destination, String... sourceKeys) {
+        redisTemplate.opsForHyperLogLog().union(destination, sourceKeys);
+    }
+
+    // Bitmap（位图）
+
+    /**
+     * 实现命令：SETBIT key offset value
+     *
+     * @param key
+     * @param offset
+     * @param value
+     * @return 该位原来的值
+     */
+    public boolean setbit(String key, long offset, boolean value) {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue().setBit(key, offset, value));
+    }
+
+    /**
+     * 实现命令：GETBIT key offset
+     *
+     * @param key
+     * @param offset
+     * @return
+     */
+    public boolean getbit(String key, long offset) {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue().getBit(key, offset));
+    }
+
+    /**
+     * 批量 SETBIT，一次 pipeline 往返
+     *
+     * @param key
+     * @param offsets
+     * @param value
+     */
+    public void setbits(String key, List<Long> offsets, boolean value) {
+        byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Long offset : offsets) {
+                connection.stringCommands().setBit(rawKey, offset, value);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 实现命令：BITCOUNT key，统计值为 1 的位数
+     *
+     * @param key
+     * @return
+     */
+    public long bitcount(String key) {
+        Long count = redisTemplate.execute((RedisCallback<Long>) connection ->
+                connection.stringCommands().bitCount(key.getBytes(StandardCharsets.UTF_8)));
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * 实现命令：BITCOUNT key start end，统计字节区间 [start, end] 内值为 1 的位数
+     *
+     * @param key
+     * @param start
+     * @param end
+     * @return
+     */
+    public long bitcount(String key, long start, long end) {
+        Long count = redisTemplate.execute((RedisCallback<Long>) connection ->
+                connection.stringCommands().bitCount(key.getBytes(StandardCharsets.UTF_8), start, end));
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * 实现命令：BITOP operation destkey key [key ...]，例如 AND 求连续多日活跃用户
+     *
+     * @param operation AND、OR、XOR、NOT
+     * @param destination
+     * @param keys
+     * @return 结果位图的字节长度
+     */
+    public long bitop(BitOperation operation, String destination, String... keys) {
+        byte[][] rawKeys = new byte[keys.length][];
+        for (int i = 0; i < keys.length; i++) {
+            rawKeys[i] = keys[i].getBytes(StandardCharsets.UTF_8);
+        }
+        Long length = redisTemplate.execute((RedisCallback<Long>) connection ->
+                connection.stringCommands().bitOp(operation, destination.getBytes(StandardCharsets.UTF_8), rawKeys));
+        return length == null ? 0 : length;
+    }
+
+    /**
+     * 实现命令：BITFIELD key GET/SET/INCRBY ...，在一个位图中读写多个定长整数
+     *
+     * @param key
+     * @param subCommands
+     * @return
+     */
+    public List<Long> bitfield(String key, BitFieldSubCommands subCommands) {
+        return redisTemplate.opsForValue().bitField(key, subCommands);
+    }
+
+    /**
+     * 通过 MODULE LIST 检测 RedisBloom 模块，结果缓存
+     */
+    private boolean isBloomModuleAvailable() {
+        if (bloomModuleAvailable == null) {
+            try {
+                Object modules = redisTemplate.execute((RedisCallback<Object>) connection -> connection.execute("MODULE", "LIST".getBytes(StandardCharsets.UTF_8)));
+                bloomModuleAvailable = containsBloom(modules);
+            } catch (Exception e) {
+                log.warn("检测RedisBloom模块失败，使用位图实现: {}", e.getMessage());
+                bloomModuleAvailable = false;
+            }
+            log.info("RedisBloom模块可用: {}", bloomModuleAvailable);
+        }
+        return bloomModuleAvailable;
+    }
+
+    private static boolean containsBloom(Object reply) {
+        if (reply instanceof byte[]) {
+            return "bf".equalsIgnoreCase(new String((byte[]) reply, StandardCharsets.UTF_8));
+        }
+        if (reply instanceof List) {
+            for (Object item : (List<?>) reply) {
+                if (containsBloom(item)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+}
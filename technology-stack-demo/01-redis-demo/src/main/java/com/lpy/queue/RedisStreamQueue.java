@@ -0,0 +1,315 @@
+package com.lpy.queue;
+
+import io.lettuce.core.XAutoClaimArgs;
+import io.lettuce.core.api.async.RedisStreamAsyncCommands;
+import io.lettuce.core.models.stream.ClaimedMessages;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisStreamCommands.XAddOptions;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.connection.stream.StringRecord;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * @Title: 基于 Redis Streams 的工作队列
+ *
+ * 相比 lpush/lpop：XREADGROUP BLOCK 阻塞读取，既不空转也不增加延迟；
+ * 消息读取后进入消费组的待确认列表（PEL），处理成功才批量 XACK，消费者崩溃时消息不会丢失，
+ * 超过 minIdleMillis 未确认的消息由 XAUTOCLAIM 转交给存活的消费者重新处理。
+ * 处理语义为至少一次，handler 需要幂等；handler 抛出异常的消息不确认，等待超时后重新投递。
+ *
+ * 通过 {@link RedisStreamQueueFactory} 创建。
+ */
+@Slf4j
+public class RedisStreamQueue implements Closeable {
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final String stream;
+
+    private final String group;
+
+    private final StreamQueueOptions options;
+
+    private final LongAdder processed = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    private final LongAdder reclaimed = new LongAdder();
+
+    private final List<Thread> pollers = new ArrayList<>();
+
+    private ExecutorService workers;
+
+    private ScheduledExecutorService reclaimer;
+
+    private volatile boolean running;
+
+    RedisStreamQueue(StringRedisTemplate redisTemplate, String stream, String group, StreamQueueOptions options) {
+        this.redisTemplate = redisTemplate;
+        this.stream = stream;
+        this.group = group;
+        this.options = options;
+    }
+
+    /**
+     * 实现命令：XADD stream MAXLEN ~ n * field value ...
+     *
+     * @param fields
+     * @return 消息ID
+     */
+    public RecordId add(Map<String, String> fields) {
+        return redisTemplate.execute((RedisCallback<RecordId>) connection ->
+                ((StringRedisConnection) connection).xAdd(record(fields), addOptions()));
+    }
+
+    /**
+     * 通过 pipeline 批量 XADD
+     *
+     * @param messages
+     * @return 消息ID，与输入顺序一致
+     */
+    public List<Object> addAll(List<Map<String, String>> messages) {
+        return redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection src = (StringRedisConnection) connection;
+            for (Map<String, String> fields : messages) {
+                src.xAdd(record(fields), addOptions());
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 启动消费：每个消费者一个拉取线程，拉到的一批消息交给 concurrency 个工作线程并行处理，
+     * 整批处理完后对成功的消息发送一次 XACK
+     *
+     * @param consumerNames 消费者名称，同一消费组内唯一，重启后使用相同名称可以接着处理自己的待确认消息
+     * @param handler
+     */
+    public synchronized void start(List<String> consumerNames, Consumer<StringRecord> handler) {
+        if (running) {
+            throw new IllegalStateException("Stream queue already started: " + stream);
+        }
+        createGroupIfAbsent();
+        running = true;
+        workers = Executors.newFixedThreadPool(options.getConcurrency() * consumerNames.size(), daemon(stream + "-worker"));
+        for (String consumerName : consumerNames) {
+            Thread poller = daemon(stream + "-poller").newThread(() -> pollLoop(consumerName, handler));
+            pollers.add(poller);
+            poller.start();
+        }
+        reclaimer = Executors.newSingleThreadScheduledExecutor(daemon(stream + "-reclaimer"));
+        reclaimer.scheduleWithFixedDelay(() -> reclaim(consumerNames.get(0), handler),
+                options.getReclaimIntervalMillis(), options.getReclaimIntervalMillis(), TimeUnit.MILLISECONDS);
+        log.info("启动Stream消费: stream={}, group={}, consumers={}, concurrency={}",
+                stream, group, consumerNames, options.getConcurrency());
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        reclaimer.shutdownNow();
+        for (Thread poller : pollers) {
+            try {
+                // 等待拉取线程结束当前的阻塞读取和批次处理
+                poller.join(options.getBlockMillis() * 2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        pollers.clear();
+        workers.shutdown();
+    }
+
+    public long getProcessedCount() {
+        return processed.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    public long getReclaimedCount() {
+        return reclaimed.sum();
+    }
+
+    private void pollLoop(String consumerName, Consumer<StringRecord> handler) {
+        org.springframework.data.redis.connection.stream.Consumer consumer =
+                org.springframework.data.redis.connection.stream.Consumer.from(group, consumerName);
+        StreamReadOptions readOptions = StreamReadOptions.empty()
+                .count(options.getBatchSize())
+                .block(Duration.ofMillis(options.getBlockMillis()));
+        // 先处理自己崩溃前未确认的消息，再读取新消息
+        ReadOffset offset = ReadOffset.from("0");
+        boolean readingPending = true;
+        while (running) {
+            try {
+                StreamOffset<String> streamOffset = StreamOffset.create(stream, offset);
+                List<StringRecord> records = redisTemplate.execute((RedisCallback<List<StringRecord>>) connection ->
+                        ((StringRedisConnection) connection).xReadGroupAsString(consumer, readOptions, streamOffset));
+                if (records == null || records.isEmpty()) {
+                    offset = ReadOffset.lastConsumed();
+                    readingPending = false;
+                    continue;
+                }
+                process(records, handler);
+                if (readingPending) {
+                    // 读取历史待确认消息时按ID推进，处理失败的消息留给 XAUTOCLAIM，避免反复读取
+                    offset = ReadOffset.from(records.get(records.size() - 1).getId());
+                }
+            } catch (Exception e) {
+                log.error("Stream拉取消息失败: stream={}, consumer={}, error={}", stream, consumerName, e.getMessage());
+                sleepQuietly(1000);
+            }
+        }
+    }
+
+    private void process(List<StringRecord> records, Consumer<StringRecord> handler) {
+        List<CompletableFuture<RecordId>> futures = new ArrayList<>(records.size());
+        for (StringRecord record : records) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    handler.accept(record);
+                    return record.getId();
+                } catch (Exception e) {
+                    failed.increment();
+                    log.error("Stream消息处理失败，等待重新投递: stream={}, id={}, error={}", stream, record.getId(), e.getMessage());
+                    return null;
+                }
+            }, workers));
+        }
+        List<RecordId> succeeded = new ArrayList<>(records.size());
+        for (CompletableFuture<RecordId> future : futures) {
+            RecordId id = future.join();
+            if (id != null) {
+                succeeded.add(id);
+            }
+        }
+        if (!succeeded.isEmpty()) {
+            redisTemplate.opsForStream().acknowledge(stream, group, succeeded.toArray(new RecordId[0]));
+            processed.add(succeeded.size());
+        }
+    }
+
+    /**
+     * XAUTOCLAIM 认领空闲超过 minIdleMillis 的待确认消息并处理
+     */
+    private void reclaim(String consumerName, Consumer<StringRecord> handler) {
+        try {
+            String startId = "0-0";
+            do {
+                XAutoClaimArgs<byte[]> args = new XAutoClaimArgs<byte[]>()
+                        .consumer(io.lettuce.core.Consumer.from(bytes(group), bytes(consumerName)))
+                        .minIdleTime(options.getMinIdleMillis())
+                        .startId(startId)
+                        .count(options.getBatchSize());
+                ClaimedMessages<byte[], byte[]> claimed = autoClaim(args);
+                List<StringRecord> records = new ArrayList<>();
+                claimed.getMessages().forEach(message -> {
+                    Map<String, String> fields = new LinkedHashMap<>();
+                    message.getBody().forEach((k, v) -> fields.put(string(k), string(v)));
+                    records.add(StreamRecords.string(fields).withStreamKey(stream).withId(RecordId.of(message.getId())));
+                });
+                if (!records.isEmpty()) {
+                    reclaimed.add(records.size());
+                    log.warn("认领超时未确认的消息: stream={}, count={}", stream, records.size());
+                    process(records, handler);
+                }
+                startId = claimed.getId();
+            } while (running && !"0-0".equals(startId));
+        } catch (Exception e) {
+            log.error("认领待确认消息失败: stream={}, error={}", stream, e.getMessage());
+        }
+    }
+
+    /**
+     * Spring Data Redis 2.7 尚未封装 XAUTOCLAIM（Redis 6.2+），直接使用 Lettuce 原生命令
+     */
+    @SuppressWarnings("unchecked")
+    private ClaimedMessages<byte[], byte[]> autoClaim(XAutoClaimArgs<byte[]> args) {
+        return redisTemplate.execute((RedisCallback<ClaimedMessages<byte[], byte[]>>) connection -> {
+            RedisStreamAsyncCommands<byte[], byte[]> commands =
+                    (RedisStreamAsyncCommands<byte[], byte[]>) connection.getNativeConnection();
+            try {
+                return commands.xautoclaim(bytes(stream), args).get(options.getBlockMillis() + 5000, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RedisSystemException("XAUTOCLAIM interrupted", e);
+            } catch (Exception e) {
+                throw new RedisSystemException("XAUTOCLAIM failed", e);
+            }
+        });
+    }
+
+    private void createGroupIfAbsent() {
+        try {
+            redisTemplate.execute((RedisCallback<String>) connection ->
+                    connection.streamCommands().xGroupCreate(bytes(stream), group, ReadOffset.from("0"), true));
+        } catch (Exception e) {
+            // BUSYGROUP：消费组已存在
+            if (e.getMessage() == null || !e.getMessage().contains("BUSYGROUP")) {
+                throw e;
+            }
+        }
+    }
+
+    private StringRecord record(Map<String, String> fields) {
+        return StreamRecords.string(fields).withStreamKey(stream);
+    }
+
+    private XAddOptions addOptions() {
+        return options.getMaxLength() > 0
+                ? XAddOptions.maxlen(options.getMaxLength()).approximateTrimming(true)
+                : XAddOptions.none();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] value) {
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
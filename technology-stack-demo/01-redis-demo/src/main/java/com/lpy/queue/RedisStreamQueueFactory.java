@@ -0,0 +1,37 @@
+package com.lpy.queue;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 创建 Redis Streams 工作队列，应用关闭时统一停止消费
+ */
+@Component
+public class RedisStreamQueueFactory {
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    private final List<RedisStreamQueue> queues = new CopyOnWriteArrayList<>();
+
+    public RedisStreamQueue create(String stream, String group) {
+        return create(stream, group, new StreamQueueOptions());
+    }
+
+    public RedisStreamQueue create(String stream, String group, StreamQueueOptions options) {
+        RedisStreamQueue queue = new RedisStreamQueue(redisTemplate, stream, group, options);
+        queues.add(queue);
+        return queue;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        queues.forEach(RedisStreamQueue::close);
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.lpy.queue;
+
+import lombok.Data;
+
+/**
+ * Redis Streams 队列参数
+ */
+@Data
+public class StreamQueueOptions {
+
+    /**
+     * XADD MAXLEN ~ 近似裁剪的长度上限，<=0 表示不裁剪
+     */
+    private long maxLength = 100000;
+
+    /**
+     * 每次 XREADGROUP 读取的最大条数
+     */
+    private int batchSize = 100;
+
+    /**
+     * XREADGROUP BLOCK 阻塞等待时间（毫秒）
+     */
+    private long blockMillis = 2000;
+
+    /**
+     * 每个消费者并行处理消息的线程数
+     */
+    private int concurrency = 4;
+
+    /**
+     * 消息未确认超过该时间（毫秒）视为消费者已崩溃，由 XAUTOCLAIM 转交给其他消费者
+     */
+    private long minIdleMillis = 60000;
+
+    /**
+     * 检查并认领超时未确认消息的间隔（毫秒）
+     */
+    private long reclaimIntervalMillis = 30000;
+
+}
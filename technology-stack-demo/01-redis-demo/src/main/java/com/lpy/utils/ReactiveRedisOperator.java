@@ -0,0 +1,217 @@
+package com.lpy.utils;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Title: Redis 响应式工具类
+ *
+ * 与 {@link RedisOperator} 命令一致的非阻塞版本，基于 ReactiveStringRedisTemplate（Lettuce 响应式 API），
+ * 等待 IO 期间不占用调用线程。大哈希推荐使用 {@link #hscan(String, long)} 流式读取。
+ */
+@Component
+public class ReactiveRedisOperator {
+
+    @Autowired
+    private ReactiveStringRedisTemplate reactiveRedisTemplate;
+
+    // Key（键），简单的key-value操作
+
+    /**
+     * 实现命令：TTL key，返回给定 key的剩余生存时间
+     *
+     * @param key
+     * @return
+     */
+    public Mono<Duration> ttl(String key) {
+        return reactiveRedisTemplate.getExpire(key);
+    }
+
+    /**
+     * 实现命令：expire 设置过期时间，单位秒
+     *
+     * @param key
+     * @param timeout
+     * @return
+     */
+    public Mono<Boolean> expire(String key, long timeout) {
+        return reactiveRedisTemplate.expire(key, Duration.ofSeconds(timeout));
+    }
+
+    /**
+     * 实现命令：INCR key，增加key一次
+     *
+     * @param key
+     * @param delta
+     * @return
+     */
+    public Mono<Long> incr(String key, long delta) {
+        return reactiveRedisTemplate.opsForValue().increment(key, delta);
+    }
+
+    /**
+     * 实现命令：SCAN cursor MATCH pattern COUNT count，流式遍历 key
+     *
+     * @param pattern
+     * @param count 每次 SCAN 的 COUNT 提示值
+     * @return
+     */
+    public Flux<String> scan(String pattern, long count) {
+        return reactiveRedisTemplate.scan(ScanOptions.scanOptions().match(pattern).count(count).build());
+    }
+
+    /**
+     * 实现命令：DEL key，删除一个key
+     *
+     * @param key
+     * @return
+     */
+    public Mono<Long> del(String key) {
+        return reactiveRedisTemplate.delete(key);
+    }
+
+    // String（字符串）
+
+    /**
+     * 实现命令：SET key value，设置一个key-value
+     *
+     * @param key
+     * @param value
+     * @return
+     */
+    public Mono<Boolean> set(String key, String value) {
+        return reactiveRedisTemplate.opsForValue().set(key, value);
+    }
+
+    /**
+     * 实现命令：SET key value EX seconds，设置key-value和超时时间（秒）
+     *
+     * @param key
+     * @param value
+     * @param timeout
+     * @return
+     */
+    public Mono<Boolean> set(String key, String value, long timeout) {
+        return reactiveRedisTemplate.opsForValue().set(key, value, Duration.ofSeconds(timeout));
+    }
+
+    /**
+     * 实现命令：GET key，返回 key所关联的字符串值，key不存在时为空 Mono
+     *
+     * @param key
+     * @return
+     */
+    public Mono<String> get(String key) {
+        return reactiveRedisTemplate.opsForValue().get(key);
+    }
+
+    /**
+     * 批量查询，对应mget，不存在的 key 对应位置为 null
+     *
+     * @param keys
+     * @return
+     */
+    public Mono<List<String>> mget(List<String> keys) {
+        return reactiveRedisTemplate.opsForValue().multiGet(keys);
+    }
+
+    // Hash（哈希表）
+
+    /**
+     * 实现命令：HSET key field value
+     *
+     * @param key
+     * @param field
+     * @param value
+     * @return
+     */
+    public Mono<Boolean> hset(String key, String field, String value) {
+        return reactiveRedisTemplate.<String, String>opsForHash().put(key, field, value);
+    }
+
+    /**
+     * 实现命令：HGET key field
+     *
+     * @param key
+     * @param field
+     * @return
+     */
+    public Mono<String> hget(String key, String field) {
+        return reactiveRedisTemplate.<String, String>opsForHash().get(key, field);
+    }
+
+    /**
+     * 实现命令：HDEL key field [field ...]
+     *
+     * @param key
+     * @param fields
+     * @return 被删除的域数量
+     */
+    public Mono<Long> hdel(String key, Object... fields) {
+        return reactiveRedisTemplate.opsForHash().remove(key, fields);
+    }
+
+    /**
+     * 实现命令：HGETALL key，以流的形式返回所有域和值（服务端仍一次性返回整个哈希）
+     *
+     * @param key
+     * @return
+     */
+    public Flux<Map.Entry<String, String>> hgetall(String key) {
+        return reactiveRedisTemplate.<String, String>opsForHash().entries(key);
+    }
+
+    /**
+     * 实现命令：HSCAN key cursor COUNT count，分批流式读取大哈希，避免 HGETALL 阻塞服务端
+     *
+     * @param key
+     * @param count 每次 HSCAN 的 COUNT 提示值
+     * @return
+     */
+    public Flux<Map.Entry<String, String>> hscan(String key, long count) {
+        return reactiveRedisTemplate.<String, String>opsForHash().scan(key, ScanOptions.scanOptions().count(count).build());
+    }
+
+    // List（列表）
+
+    /**
+     * 实现命令：LPUSH key value
+     *
+     * @param key
+     * @param value
+     * @return 执行 LPUSH命令后，列表的长度。
+     */
+    public Mono<Long> lpush(String key, String value) {
+        return reactiveRedisTemplate.opsForList().leftPush(key, value);
+    }
+
+    /**
+     * 实现命令：LPOP key
+     *
+     * @param key
+     * @return 列表key的头元素。
+     */
+    public Mono<String> lpop(String key) {
+        return reactiveRedisTemplate.opsForList().leftPop(key);
+    }
+
+    /**
+     * 实现命令：RPUSH key value
+     *
+     * @param key
+     * @param value
+     * @return 执行 RPUSH命令后，列表的长度。
+     */
+    public Mono<Long> rpush(String key, String value) {
+        return reactiveRedisTemplate.opsForList().rightPush(key, value);
+    }
+
+}
@@ -0,0 +1,194 @@
+package com.lpy.utils;
+
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * @Title: Redis 批量命令构建器
+ *
+ * 先排队任意混合的命令，execute 时通过 pipeline 一次性发送，每 chunkSize 条命令刷新一次，
+ * 避免单个 pipeline 过大占用过多内存。结果按入队顺序返回，类型与命令对应：
+ * get/hget/lpop 返回 String，set/expire/hset 返回 Boolean，incr/lpush/rpush/del/hdel 返回 Long。
+ *
+ * 集群模式下先按 slot 分组，每组单独 pipeline，避免一个 pipeline 跨越多个节点，结果仍按入队顺序返回。
+ * 写命令涉及的 key 在所在分块执行后（无论成功与否）立即失效本地近缓存，
+ * 中途某个分块失败时，之前已经写入的分块不会留下过期的近缓存。
+ *
+ * 通过 {@link RedisOperator#batch()} 创建，非线程安全，一个实例只应执行一次。
+ */
+public class RedisBatch {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final Consumer<String> onWrite;
+
+    private final boolean cluster;
+
+    private final List<Command> commands = new ArrayList<>();
+
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    RedisBatch(StringRedisTemplate redisTemplate, Consumer<String> onWrite, boolean cluster) {
+        this.redisTemplate = redisTemplate;
+        this.onWrite = onWrite;
+        this.cluster = cluster;
+    }
+
+    /**
+     * 每个 pipeline 最多包含的命令数
+     *
+     * @param chunkSize
+     * @return
+     */
+    public RedisBatch chunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    public RedisBatch get(String key) {
+        return read(key, c -> c.get(key));
+    }
+
+    public RedisBatch set(String key, String value) {
+        return write(key, c -> c.set(key, value));
+    }
+
+    /**
+     * SET key value EX seconds
+     */
+    public RedisBatch set(String key, String value, long timeout) {
+        return write(key, c -> c.setEx(key, timeout, value));
+    }
+
+    public RedisBatch incr(String key, long delta) {
+        return write(key, c -> c.incrBy(key, delta));
+    }
+
+    /**
+     * EXPIRE key seconds
+     */
+    public RedisBatch expire(String key, long timeout) {
+        return write(key, c -> c.expire(key, timeout));
+    }
+
+    public RedisBatch del(String key) {
+        return write(key, c -> c.del(key));
+    }
+
+    public RedisBatch hget(String key, String field) {
+        return read(key, c -> c.hGet(key, field));
+    }
+
+    public RedisBatch hset(String key, String field, String value) {
+        return write(key, c -> c.hSet(key, field, value));
+    }
+
+    public RedisBatch hdel(String key, String... fields) {
+        return write(key, c -> c.hDel(key, fields));
+    }
+
+    public RedisBatch lpush(String key, String value) {
+        return write(key, c -> c.lPush(key, value));
+    }
+
+    public RedisBatch rpush(String key, String value) {
+        return write(key, c -> c.rPush(key, value));
+    }
+
+    public RedisBatch lpop(String key) {
+        return write(key, c -> c.lPop(key));
+    }
+
+    public int size() {
+        return commands.size();
+    }
+
+    /**
+     * 分块执行所有排队的命令
+     *
+     * @return 按入队顺序排列的结果
+     */
+    public List<Object> execute() {
+        Object[] results = new Object[commands.size()];
+        for (List<Integer> group : groups()) {
+            for (int from = 0; from < group.size(); from += chunkSize) {
+                executeChunk(group.subList(from, Math.min(from + chunkSize, group.size())), results);
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * 单机模式下全部命令一组；集群模式下按 slot 分组，组内保持入队顺序
+     */
+    private List<List<Integer>> groups() {
+        Map<Integer, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < commands.size(); i++) {
+            int slot = cluster ? RedisKeys.slot(commands.get(i).key) : 0;
+            groups.computeIfAbsent(slot, s -> new ArrayList<>()).add(i);
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    private void executeChunk(List<Integer> chunk, Object[] results) {
+        try {
+            List<Object> values = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection src = (StringRedisConnection) connection;
+                for (int index : chunk) {
+                    commands.get(index).action.accept(src);
+                }
+                return null;
+            });
+            for (int i = 0; i < chunk.size(); i++) {
+                results[chunk.get(i)] = values.get(i);
+            }
+        } finally {
+            // 分块失败时其中部分命令可能已经生效，同样需要失效
+            for (int index : chunk) {
+                Command command = commands.get(index);
+                if (command.write) {
+                    onWrite.accept(command.key);
+                }
+            }
+        }
+    }
+
+    private RedisBatch read(String key, Consumer<StringRedisConnection> action) {
+        commands.add(new Command(key, false, action));
+        return this;
+    }
+
+    private RedisBatch write(String key, Consumer<StringRedisConnection> action) {
+        commands.add(new Command(key, true, action));
+        return this;
+    }
+
+    private static class Command {
+
+        private final String key;
+
+        private final boolean write;
+
+        private final Consumer<StringRedisConnection> action;
+
+        Command(String key, boolean write, Consumer<StringRedisConnection> action) {
+            this.key = key;
+            this.write = write;
+            this.action = action;
+        }
+    }
+
+}
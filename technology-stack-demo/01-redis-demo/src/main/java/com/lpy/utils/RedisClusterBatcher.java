@@ -0,0 +1,172 @@
+package com.lpy.utils;
+
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.cluster.api.async.RedisAdvancedClusterAsyncCommands;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * @Title: Redis 集群批量读写
+ *
+ * 集群模式下跨 slot 的 MGET/MSET 会报 CROSSSLOT，逐个 key 串行访问又要在节点间来回往返。
+ * 这里先按 slot 分组，每个 slot 一条 MGET/MSET，发送到该 slot 所在节点的连接上：
+ * 同一节点的命令由 Lettuce 异步流水线发送，不同节点的命令并行执行，最后按输入顺序组装结果。
+ * 分组后的某个节点失败（例如扩缩容期间的 MOVED）时，整体回退到 Lettuce 自带的跨 slot 路由重试。
+ */
+@Slf4j
+@Component
+public class RedisClusterBatcher {
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    /**
+     * 集群版 MGET
+     *
+     * @param keys
+     * @return 与 keys 顺序一致的值，不存在的 key 为 null
+     */
+    public List<String> mget(List<String> keys) {
+        try (RedisClusterConnection connection = redisTemplate.getRequiredConnectionFactory().getClusterConnection()) {
+            RedisAdvancedClusterAsyncCommands<byte[], byte[]> commands = nativeCommands(connection);
+            Duration timeout = commands.getStatefulConnection().getTimeout();
+            Map<Integer, List<Integer>> slots = groupBySlot(keys);
+            Map<String, RedisClusterAsyncCommands<byte[], byte[]>> nodeCommands = new HashMap<>();
+
+            // 先全部发出，再统一等待，各节点并行
+            Map<List<Integer>, RedisFuture<List<KeyValue<byte[], byte[]>>>> futures = new LinkedHashMap<>();
+            for (Map.Entry<Integer, List<Integer>> entry : slots.entrySet()) {
+                RedisClusterAsyncCommands<byte[], byte[]> node = nodeFor(connection, commands, nodeCommands, entry.getKey());
+                futures.put(entry.getValue(), node.mget(toBytes(keys, entry.getValue())));
+            }
+
+            String[] values = new String[keys.size()];
+            try {
+                for (Map.Entry<List<Integer>, RedisFuture<List<KeyValue<byte[], byte[]>>>> entry : futures.entrySet()) {
+                    List<KeyValue<byte[], byte[]>> result = entry.getValue().get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+                    for (int i = 0; i < result.size(); i++) {
+                        KeyValue<byte[], byte[]> kv = result.get(i);
+                        values[entry.getKey().get(i)] = kv.hasValue() ? new String(kv.getValue(), StandardCharsets.UTF_8) : null;
+                    }
+                }
+            } catch (ExecutionException | TimeoutException e) {
+                log.warn("按slot分组MGET失败，回退到集群路由: size={}, error={}", keys.size(), e.getMessage());
+                return fallbackMget(commands, keys, timeout);
+            }
+            return Arrays.asList(values);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RedisSystemException("Cluster MGET interrupted", e);
+        }
+    }
+
+    /**
+     * 集群版 MSET
+     *
+     * @param values
+     */
+    public void mset(Map<String, String> values) {
+        List<String> keys = new ArrayList<>(values.keySet());
+        try (RedisClusterConnection connection = redisTemplate.getRequiredConnectionFactory().getClusterConnection()) {
+            RedisAdvancedClusterAsyncCommands<byte[], byte[]> commands = nativeCommands(connection);
+            Duration timeout = commands.getStatefulConnection().getTimeout();
+            Map<String, RedisClusterAsyncCommands<byte[], byte[]>> nodeCommands = new HashMap<>();
+
+            List<RedisFuture<String>> futures = new ArrayList<>();
+            for (Map.Entry<Integer, List<Integer>> entry : groupBySlot(keys).entrySet()) {
+                Map<byte[], byte[]> slotValues = new LinkedHashMap<>();
+                for (int index : entry.getValue()) {
+                    String key = keys.get(index);
+                    slotValues.put(key.getBytes(StandardCharsets.UTF_8), values.get(key).getBytes(StandardCharsets.UTF_8));
+                }
+                futures.add(nodeFor(connection, commands, nodeCommands, entry.getKey()).mset(slotValues));
+            }
+            try {
+                for (RedisFuture<String> future : futures) {
+                    future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+                }
+            } catch (ExecutionException | TimeoutException e) {
+                log.warn("按slot分组MSET失败，回退到集群路由: size={}, error={}", keys.size(), e.getMessage());
+                Map<byte[], byte[]> all = new LinkedHashMap<>();
+                values.forEach((k, v) -> all.put(k.getBytes(StandardCharsets.UTF_8), v.getBytes(StandardCharsets.UTF_8)));
+                await(commands.mset(all), timeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RedisSystemException("Cluster MSET interrupted", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RedisAdvancedClusterAsyncCommands<byte[], byte[]> nativeCommands(RedisClusterConnection connection) {
+        return (RedisAdvancedClusterAsyncCommands<byte[], byte[]>) connection.getNativeConnection();
+    }
+
+    private static RedisClusterAsyncCommands<byte[], byte[]> nodeFor(RedisClusterConnection connection,
+                                                                     RedisAdvancedClusterAsyncCommands<byte[], byte[]> commands,
+                                                                     Map<String, RedisClusterAsyncCommands<byte[], byte[]>> nodeCommands,
+                                                                     int slot) {
+        RedisClusterNode node = connection.clusterGetNodeForSlot(slot);
+        return nodeCommands.computeIfAbsent(node.getId(), commands::getConnection);
+    }
+
+    /**
+     * slot -> 该 slot 下 key 在输入中的下标
+     */
+    private static Map<Integer, List<Integer>> groupBySlot(List<String> keys) {
+        Map<Integer, List<Integer>> slots = new LinkedHashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            slots.computeIfAbsent(RedisKeys.slot(keys.get(i)), s -> new ArrayList<>()).add(i);
+        }
+        return slots;
+    }
+
+    private static byte[][] toBytes(List<String> keys, List<Integer> indexes) {
+        byte[][] bytes = new byte[indexes.size()][];
+        for (int i = 0; i < indexes.size(); i++) {
+            bytes[i] = keys.get(indexes.get(i)).getBytes(StandardCharsets.UTF_8);
+        }
+        return bytes;
+    }
+
+    private static List<String> fallbackMget(RedisAdvancedClusterAsyncCommands<byte[], byte[]> commands,
+                                             List<String> keys, Duration timeout) throws InterruptedException {
+        byte[][] bytes = new byte[keys.size()][];
+        for (int i = 0; i < keys.size(); i++) {
+            bytes[i] = keys.get(i).getBytes(StandardCharsets.UTF_8);
+        }
+        List<String> values = new ArrayList<>(keys.size());
+        for (KeyValue<byte[], byte[]> kv : await(commands.mget(bytes), timeout)) {
+            values.add(kv.hasValue() ? new String(kv.getValue(), StandardCharsets.UTF_8) : null);
+        }
+        return values;
+    }
+
+    private static <T> T await(RedisFuture<T> future, Duration timeout) throws InterruptedException {
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new RedisSystemException("Cluster command failed", e);
+        }
+    }
+
+}
@@ -0,0 +1,273 @@
+package com.lpy.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Title: Redis 命令自动合并器
+ *
+ * 高并发下大量线程同时调用单 key 的 get/hget/incr，每次调用都要付出一次网络往返。
+ * 合并器把 window-micros 时间窗口内（或攒够 max-batch-size 个）的请求合并：
+ * 全部是 get 时发送一条 MGET，否则通过 pipeline 一次发送，结果再分别完成各自的 future。
+ *
+ * 以 redis.coalescing.enabled=true 开启，窗口越大合并率越高，单次调用延迟也越高，
+ * 可根据批大小和排队延迟指标调整。
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "redis.coalescing", name = "enabled", havingValue = "true")
+public class RedisCommandCoalescer {
+
+    @Autowired
+    private RedisOperator redisOperator;
+
+    @Value("${redis.coalescing.window-micros:200}")
+    private long windowMicros;
+
+    @Value("${redis.coalescing.max-batch-size:128}")
+    private int maxBatchSize;
+
+    @Value("${redis.coalescing.queue-capacity:10000}")
+    private int queueCapacity;
+
+    private BlockingQueue<Request> queue;
+
+    private Thread flusher;
+
+    private volatile boolean running;
+
+    private final LongAdder batches = new LongAdder();
+
+    private final LongAdder commands = new LongAdder();
+
+    private final LongAccumulator maxBatch = new LongAccumulator(Math::max, 0);
+
+    private final LongAdder queueDelayNanos = new LongAdder();
+
+    private final LongAccumulator maxQueueDelayNanos = new LongAccumulator(Math::max, 0);
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        flusher = new Thread(this::flushLoop, "redis-coalescer");
+        flusher.setDaemon(true);
+        flusher.start();
+        log.info("启动Redis命令合并器: windowMicros={}, maxBatchSize={}", windowMicros, maxBatchSize);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        flusher.interrupt();
+        flusher.join(TimeUnit.SECONDS.toMillis(5));
+        // 合并线程退出后仍可能有请求在 running 置为 false 之前通过检查并入队
+        rejectPending();
+    }
+
+    /**
+     * 合并执行 GET key
+     *
+     * @param key
+     * @return
+     */
+    public CompletableFuture<String> get(String key) {
+        return submit(new Request(Type.GET, key, null, 0));
+    }
+
+    /**
+     * 合并执行 HGET key field
+     *
+     * @param key
+     * @param field
+     * @return
+     */
+    public CompletableFuture<String> hget(String key, String field) {
+        return submit(new Request(Type.HGET, key, field, 0));
+    }
+
+    /**
+     * 合并执行 INCRBY key delta
+     *
+     * @param key
+     * @param delta
+     * @return
+     */
+    public CompletableFuture<Long> incr(String key, long delta) {
+        return submit(new Request(Type.INCR, key, null, delta));
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    public long getCommandCount() {
+        return commands.sum();
+    }
+
+    /**
+     * 平均每批合并的命令数
+     */
+    public double getAverageBatchSize() {
+        long count = batches.sum();
+        return count == 0 ? 0 : (double) commands.sum() / count;
+    }
+
+    public long getMaxBatchSize() {
+        return maxBatch.get();
+    }
+
+    /**
+     * 请求从入队到发送的平均等待时间（微秒）
+     */
+    public double getAverageQueueDelayMicros() {
+        long count = commands.sum();
+        return count == 0 ? 0 : queueDelayNanos.sum() / 1000.0 / count;
+    }
+
+    public long getMaxQueueDelayMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(maxQueueDelayNanos.get());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> submit(Request request) {
+        if (!running || !queue.offer(request)) {
+            request.future.completeExceptionally(new RejectedExecutionException("Redis coalescer queue is full or stopped"));
+        } else if (!running && queue.remove(request)) {
+            // 入队时合并器恰好停止，最后一次清理可能已经结束，由提交方自己拒绝；移除失败说明已被取走处理
+            request.future.completeExceptionally(new RejectedExecutionException("Redis coalescer stopped"));
+        }
+        return (CompletableFuture<T>) request.future;
+    }
+
+    private void flushLoop() {
+        List<Request> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(windowMicros);
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        // 窗口已结束，顺带取走已经到达的请求
+                        queue.drainTo(batch, maxBatchSize - batch.size());
+                        break;
+                    }
+                    Request next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                // 已取出但未发送的请求不能随 batch 清空而丢失，已完成的 future 不受影响
+                for (Request request : batch) {
+                    request.future.completeExceptionally(new RejectedExecutionException("Redis coalescer stopped"));
+                }
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+        rejectPending();
+    }
+
+    private void rejectPending() {
+        Request pending;
+        while ((pending = queue.poll()) != null) {
+            pending.future.completeExceptionally(new RejectedExecutionException("Redis coalescer stopped"));
+        }
+    }
+
+    private void flush(List<Request> batch) {
+        long now = System.nanoTime();
+        boolean allGets = true;
+        for (Request request : batch) {
+            long delay = now - request.enqueuedAt;
+            queueDelayNanos.add(delay);
+            maxQueueDelayNanos.accumulate(delay);
+            allGets &= request.type == Type.GET;
+        }
+        batches.increment();
+        commands.add(batch.size());
+        maxBatch.accumulate(batch.size());
+
+        try {
+            List<?> results;
+            if (allGets) {
+                List<String> keys = new ArrayList<>(batch.size());
+                for (Request request : batch) {
+                    keys.add(request.key);
+                }
+                results = redisOperator.mget(keys);
+            } else {
+                RedisBatch redisBatch = redisOperator.batch().chunkSize(maxBatchSize);
+                for (Request request : batch) {
+                    switch (request.type) {
+                        case GET:
+                            redisBatch.get(request.key);
+                            break;
+                        case HGET:
+                            redisBatch.hget(request.key, request.field);
+                            break;
+                        default:
+                            redisBatch.incr(request.key, request.delta);
+                    }
+                }
+                results = redisBatch.execute();
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).future.complete(results.get(i));
+            }
+        } catch (Exception e) {
+            log.error("Redis合并命令执行失败: size={}, error={}", batch.size(), e.getMessage());
+            for (Request request : batch) {
+                request.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private enum Type {
+        GET, HGET, INCR
+    }
+
+    private static final class Request {
+
+        private final Type type;
+
+        private final String key;
+
+        private final String field;
+
+        private final long delta;
+
+        private final long enqueuedAt = System.nanoTime();
+
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+
+        private Request(Type type, String key, String field, long delta) {
+            this.type = type;
+            this.key = key;
+            this.field = field;
+            this.delta = delta;
+        }
+    }
+
+}
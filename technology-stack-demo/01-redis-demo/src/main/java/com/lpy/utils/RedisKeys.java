@@ -0,0 +1,63 @@
+package com.lpy.utils;
+
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+
+/**
+ * @Title: Redis key 工具
+ *
+ * 集群模式下只有 {} 内的 hash tag 参与 slot 计算，相关的 key 使用同一个 hash tag
+ * 即可落在同一个 slot，从而支持 MGET/MSET、事务和多 key 脚本。
+ */
+public final class RedisKeys {
+
+    private static final String SEPARATOR = ":";
+
+    private RedisKeys() {
+    }
+
+    /**
+     * 拼接带 hash tag 的 key，例如 tagged("user", "1001", "profile") -> user:{1001}:profile，
+     * 同一用户的所有 key 都落在同一个 slot
+     *
+     * @param prefix 业务前缀
+     * @param tag 决定 slot 的部分
+     * @param parts 其余部分
+     * @return
+     */
+    public static String tagged(String prefix, String tag, String... parts) {
+        StringBuilder key = new StringBuilder(prefix).append(SEPARATOR).append('{').append(tag).append('}');
+        for (String part : parts) {
+            key.append(SEPARATOR).append(part);
+        }
+        return key.toString();
+    }
+
+    /**
+     * 计算 key 所在的 slot（0~16383）
+     *
+     * @param key
+     * @return
+     */
+    public static int slot(String key) {
+        return ClusterSlotHashUtil.calculateSlot(key);
+    }
+
+    /**
+     * 判断所有 key 是否位于同一个 slot
+     *
+     * @param keys
+     * @return
+     */
+    public static boolean sameSlot(Iterable<String> keys) {
+        int slot = -1;
+        for (String key : keys) {
+            int current = slot(key);
+            if (slot != -1 && slot != current) {
+                return false;
+            }
+            slot = current;
+        }
+        return true;
+    }
+
+}
@@ -1,17 +1,36 @@
 package com.lpy.utils;
 
+import com.lpy.cache.RedisNearCache;
+import com.lpy.codec.RedisCodecRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
 import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * @Title: Redis 工具类
@@ -26,6 +45,24 @@ public class RedisOperator {
     @Autowired
     private StringRedisTemplate redisTemplate;
 
+    /**
+     * 本地一级缓存，仅在 redis.near-cache.enabled=true 时存在
+     */
+    @Autowired(required = false)
+    private RedisNearCache nearCache;
+
+    @Autowired
+    private RedisScriptRegistry scriptRegistry;
+
+    @Autowired
+    private RedisTemplate<String, byte[]> binaryRedisTemplate;
+
+    @Autowired
+    private RedisCodecRegistry codecRegistry;
+
+    @Autowired
+    private RedisClusterBatcher clusterBatcher;
+
     // Key（键），简单的key-value操作
 
     /**
@@ -46,6 +83,7 @@ public class RedisOperator {
      */
     public void expire(String key, long timeout) {
         redisTemplate.expire(key, timeout, TimeUnit.SECONDS);
+        invalidateNearCache(key);
     }
 
     /**
@@ -55,16 +93,141 @@ public class RedisOperator {
      * @return
      */
     public long incr(String key, long delta) {
-        return redisTemplate.opsForValue().increment(key, delta);
+        long value = redisTemplate.opsForValue().increment(key, delta);
+        invalidateNearCache(key);
+        return value;
     }
 
     /**
      * 实现命令：KEYS pattern，查找所有符合给定模式 pattern的 key
+     *
+     * @deprecated KEYS 会阻塞 Redis 并一次性加载全部结果，请使用 {@link #scan(String, long)}
      */
+    @Deprecated
     public Set<String> keys(String pattern) {
         return redisTemplate.keys(pattern);
     }
 
+    /**
+     * 实现命令：SCAN cursor MATCH pattern COUNT count，以游标方式增量遍历 key，不阻塞 Redis。
+     * 返回惰性 Stream，消费时才向 Redis 拉取下一批；集群模式下依次遍历每个主节点。
+     * Stream 持有游标和连接，使用完毕必须关闭（try-with-resources）。
+     * SCAN 语义下遍历期间被修改的 key 可能重复返回，调用方需自行去重。
+     *
+     * @param pattern
+     * @param count 每次 SCAN 的 COUNT 提示值
+     * @return
+     */
+    public Stream<String> scan(String pattern, long count) {
+        ScanOptions options = scanOptions(pattern, count);
+        if (!isCluster()) {
+            return redisTemplate.scan(options).stream();
+        }
+        RedisClusterConnection connection = redisTemplate.getRequiredConnectionFactory().getClusterConnection();
+        return masters(connection).stream()
+                .flatMap(node -> deserializeKeys(connection.scan(node, options)))
+                .onClose(connection::close);
+    }
+
+    /**
+     * 基于 SCAN 分批遍历 key，每凑满 batchSize 个 key 回调一次 handler。
+     * 回调在扫描线程中同步执行，处理不完不会继续扫描，天然具备背压；
+     * 集群模式下每个主节点一个线程并行扫描，handler 会被多个线程并发调用，必须线程安全
+     * （如累加计数用 AtomicLong，收集结果用并发集合）；没有可用主节点时直接返回 0。
+     *
+     * @param pattern
+     * @param count 每次 SCAN 的 COUNT 提示值
+     * @param batchSize 每批回调的 key 数量
+     * @param handler
+     * @return 遍历到的 key 总数
+     */
+    public long scanEach(String pattern, long count, int batchSize, Consumer<List<String>> handler) {
+        ScanOptions options = scanOptions(pattern, count);
+        if (!isCluster()) {
+            try (Cursor<String> cursor = redisTemplate.scan(options)) {
+                return drainInBatches(cursor, batchSize, handler);
+            }
+        }
+
+        List<RedisClusterNode> masters;
+        try (RedisClusterConnection connection = redisTemplate.getRequiredConnectionFactory().getClusterConnection()) {
+            masters = masters(connection);
+        }
+        if (masters.isEmpty()) {
+            return 0;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(masters.size());
+        try {
+            List<Future<Long>> futures = new ArrayList<>();
+            for (RedisClusterNode node : masters) {
+                futures.add(executor.submit(() -> {
+                    try (RedisClusterConnection connection = redisTemplate.getRequiredConnectionFactory().getClusterConnection();
+                         Stream<String> keys = deserializeKeys(connection.scan(node, options))) {
+                        return drainInBatches(keys.iterator(), batchSize, handler);
+                    }
+                }));
+            }
+            long total = 0;
+            for (Future<Long> future : futures) {
+                total += future.get();
+            }
+            return total;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("SCAN interrupted: " + pattern, e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("SCAN failed: " + pattern, e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 按模式批量删除 key（SCAN + UNLINK），用于清理整个前缀，不会调用 KEYS
+     *
+     * @param pattern
+     * @param count 每次 SCAN 的 COUNT 提示值
+     * @return 删除的 key 数量
+     */
+    public long deleteByPattern(String pattern, long count) {
+        AtomicLong deleted = new AtomicLong();
+        scanEach(pattern, count, (int) Math.max(count, 1), batch -> {
+            Long removed = redisTemplate.unlink(batch);
+            deleted.addAndGet(removed == null ? 0 : removed);
+            batch.forEach(this::invalidateNearCache);
+        });
+        return deleted.get();
+    }
+
+    /**
+     * 按模式批量设置过期时间（SCAN + EXPIRE），单位秒
+     *
+     * @param pattern
+     * @param timeout
+     * @param count 每次 SCAN 的 COUNT 提示值
+     * @return 遍历到的 key 数量
+     */
+    public long expireByPattern(String pattern, long timeout, long count) {
+        boolean cluster = isCluster();
+        return scanEach(pattern, count, (int) Math.max(count, 1), batch -> {
+            if (cluster) {
+                // 集群连接不支持 pipeline，逐个设置
+                for (String k : batch) {
+                    redisTemplate.expire(k, timeout, TimeUnit.SECONDS);
+                }
+            } else {
+                redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    StringRedisConnection src = (StringRedisConnection) connection;
+                    for (String k : batch) {
+                        src.expire(k, timeout);
+                    }
+                    return null;
+                });
+            }
+            batch.forEach(this::invalidateNearCache);
+        });
+    }
+
     /**
      * 实现命令：DEL key，删除一个key
      *
@@ -72,6 +235,7 @@ public class RedisOperator {
      */
     public void del(String key) {
         redisTemplate.delete(key);
+        invalidateNearCache(key);
     }
 
     // String（字符串）
@@ -84,6 +248,7 @@ public class RedisOperator {
      */
     public void set(String key, String value) {
         redisTemplate.opsForValue().set(key, value);
+        invalidateNearCache(key);
     }
 
     /**
@@ -96,6 +261,7 @@ public class RedisOperator {
      */
     public void set(String key, String value, long timeout) {
         redisTemplate.opsForValue().set(key, value, timeout, TimeUnit.SECONDS);
+        invalidateNearCache(key);
     }
 
     /**
@@ -105,18 +271,72 @@ public class RedisOperator {
      * @return value
      */
     public String get(String key) {
+        if (nearCache != null && nearCache.isCacheable(key)) {
+            return nearCache.get(key, () -> redisTemplate.opsForValue().get(key));
+        }
         return (String)redisTemplate.opsForValue().get(key);
     }
 
     /**
-     * 批量查询，对应mget
+     * 实现命令：SET key value，值按 key 前缀对应的编解码器（json/cbor/smile）编码，超过阈值时压缩
+     *
+     * @param key
+     * @param value
+     */
+    public void setObject(String key, Object value) {
+        binaryRedisTemplate.opsForValue().set(key, codecRegistry.encode(key, value));
+        invalidateNearCache(key);
+    }
+
+    /**
+     * 实现命令：SET key value EX seconds，值按 key 前缀对应的编解码器编码
+     *
+     * @param key
+     * @param value
+     * @param timeout
+     *            （以秒为单位）
+     */
+    public void setObject(String key, Object value, long timeout) {
+        binaryRedisTemplate.opsForValue().set(key, codecRegistry.encode(key, value), timeout, TimeUnit.SECONDS);
+        invalidateNearCache(key);
+    }
+
+    /**
+     * 实现命令：GET key，按格式头自动选择编解码器解码，兼容旧的纯字符串/JSON 值
+     *
+     * @param key
+     * @param type
+     * @return
+     */
+    public <T> T getObject(String key, Class<T> type) {
+        return codecRegistry.decode(binaryRedisTemplate.opsForValue().get(key), type);
+    }
+
+    /**
+     * 批量查询，对应mget。集群模式下按 slot 分组，各节点并行执行后按输入顺序返回
      * @param keys
      * @return
      */
     public List<String> mget(List<String> keys) {
+        if (isCluster() && !RedisKeys.sameSlot(keys)) {
+            return clusterBatcher.mget(keys);
+        }
         return redisTemplate.opsForValue().multiGet(keys);
     }
 
+    /**
+     * 批量写入，对应mset。集群模式下按 slot 分组，各节点并行执行
+     * @param values
+     */
+    public void mset(Map<String, String> values) {
+        if (isCluster() && !RedisKeys.sameSlot(values.keySet())) {
+            clusterBatcher.mset(values);
+        } else {
+            redisTemplate.opsForValue().multiSet(values);
+        }
+        values.keySet().forEach(this::invalidateNearCache);
+    }
+
     /**
      * 批量查询，管道pipeline
      * @param keys
@@ -127,6 +347,11 @@ public class RedisOperator {
 //		nginx -> keepalive
 //		redis -> pipeline
 
+        // 集群连接不支持 pipeline，改为按 slot 分组的并行 MGET
+        if (isCluster()) {
+            return new ArrayList<>(clusterBatcher.mget(keys));
+        }
+
         List<Object> result = redisTemplate.executePipelined(new RedisCallback<String>() {
             @Override
             public String doInRedis(RedisConnection connection) throws DataAccessException {
@@ -142,6 +367,78 @@ public class RedisOperator {
         return result;
     }
 
+    /**
+     * 创建批量命令构建器，混合排队 set/hset/lpush/expire/incr 等命令后一次性 pipeline 执行，
+     * 集群模式下按 slot 分组执行
+     *
+     * @return
+     */
+    public RedisBatch batch() {
+        return new RedisBatch(redisTemplate, this::invalidateNearCache, isCluster());
+    }
+
+
+    // Script（Lua 脚本，单次往返的原子操作）
+
+    /**
+     * 原子自增，key 首次创建（或没有过期时间）时设置过期时间，替代 incr + expire 两次往返
+     *
+     * @param key
+     * @param delta
+     * @param timeout 过期时间（秒）
+     * @return 自增后的值
+     */
+    public long incrWithTtl(String key, long delta, long timeout) {
+        Long value = scriptRegistry.execute("incr_with_ttl", Collections.singletonList(key), String.valueOf(delta), String.valueOf(timeout));
+        invalidateNearCache(key);
+        return value;
+    }
+
+    /**
+     * 比较并设置：当前值等于 expected 时才写入 value
+     *
+     * @param key
+     * @param expected 期望的当前值，null 表示期望 key 不存在
+     * @param value
+     * @param timeout 过期时间（秒），<=0 表示不过期
+     * @return 是否写入成功
+     */
+    public boolean compareAndSet(String key, String expected, String value, long timeout) {
+        // 脚本参数不能为 null，key 不存在的期望通过第四个参数传递
+        Long result = scriptRegistry.execute("compare_and_set", Collections.singletonList(key),
+                expected == null ? "" : expected, value, String.valueOf(timeout), expected == null ? "1" : "0");
+        invalidateNearCache(key);
+        return result != null && result == 1L;
+    }
+
+    /**
+     * 定长列表：LPUSH 后只保留最新的 maxLength 个元素
+     *
+     * @param key
+     * @param value
+     * @param maxLength
+     * @return 列表长度
+     */
+    public long cappedPush(String key, String value, long maxLength) {
+        return scriptRegistry.execute("capped_push", Collections.singletonList(key), value, String.valueOf(maxLength));
+    }
+
+    /**
+     * 多key条件删除：所有 key 的值都等于对应的期望值时才全部删除，常用于释放锁。
+     * 集群模式下这些 key 必须位于同一 slot（使用 hash tag）。
+     *
+     * @param keys
+     * @param expectedValues 与 keys 一一对应
+     * @return 删除的 key 数量，任一不匹配时为 0
+     */
+    public long deleteIfEquals(List<String> keys, List<String> expectedValues) {
+        if (keys.size() != expectedValues.size()) {
+            throw new IllegalArgumentException("keys and expectedValues must have the same size");
+        }
+        Long deleted = scriptRegistry.execute("delete_if_equals", keys, expectedValues.toArray());
+        keys.forEach(this::invalidateNearCache);
+        return deleted;
+    }
 
     // Hash（哈希表）
 
@@ -154,6 +451,7 @@ public class RedisOperator {
      */
     public void hset(String key, String field, Object value) {
         redisTemplate.opsForHash().put(key, field, value);
+        invalidateNearCache(key);
     }
 
     /**
@@ -164,6 +462,9 @@ public class RedisOperator {
      * @return
      */
     public String hget(String key, String field) {
+        if (nearCache != null && nearCache.isCacheable(key)) {
+            return nearCache.hget(key, field, () -> (String) redisTemplate.opsForHash().get(key, field));
+        }
         return (String) redisTemplate.opsForHash().get(key, field);
     }
 
@@ -175,6 +476,7 @@ public class RedisOperator {
      */
     public void hdel(String key, Object... fields) {
         redisTemplate.opsForHash().delete(key, fields);
+        invalidateNearCache(key);
     }
 
     /**
@@ -221,4 +523,56 @@ public class RedisOperator {
         return redisTemplate.opsForList().rightPush(key, value);
     }
 
+    private static ScanOptions scanOptions(String pattern, long count) {
+        return ScanOptions.scanOptions().match(pattern).count(count).build();
+    }
+
+    private static long drainInBatches(Iterator<String> keys, int batchSize, Consumer<List<String>> handler) {
+        long total = 0;
+        List<String> batch = new ArrayList<>(batchSize);
+        while (keys.hasNext()) {
+            batch.add(keys.next());
+            if (batch.size() >= batchSize) {
+                handler.accept(batch);
+                total += batch.size();
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            handler.accept(batch);
+            total += batch.size();
+        }
+        return total;
+    }
+
+    private Stream<String> deserializeKeys(Cursor<byte[]> cursor) {
+        return cursor.stream().map(redisTemplate.getStringSerializer()::deserialize);
+    }
+
+    private static List<RedisClusterNode> masters(RedisClusterConnection connection) {
+        List<RedisClusterNode> masters = new ArrayList<>();
+        for (RedisClusterNode node : connection.clusterGetNodes()) {
+            if (node.isMaster() && node.isConnected()) {
+                masters.add(node);
+            }
+        }
+        return masters;
+    }
+
+    private boolean isCluster() {
+        RedisConnectionFactory factory = redisTemplate.getRequiredConnectionFactory();
+        return factory instanceof LettuceConnectionFactory && ((LettuceConnectionFactory) factory).isClusterAware();
+    }
+
+    /**
+     * 本进程写入后立即失效本地缓存，不必等待 keyspace 通知
+     *
+     * @param key
+     */
+    private void invalidateNearCache(String key) {
+        if (nearCache != null && nearCache.isCacheable(key)) {
+            nearCache.invalidate(key);
+        }
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,135 @@
+package com.lpy.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @Title: Redis Lua 脚本注册表
+ *
+ * 启动时加载 classpath:lua/*.lua（脚本名为去掉 .lua 的文件名）并预先 SCRIPT LOAD 到服务端。
+ * 执行时优先发送 EVALSHA，只传 40 字节的 SHA1；服务端重启或 SCRIPT FLUSH 后返回 NOSCRIPT 时，
+ * 由 RedisTemplate 自动改用 EVAL 重新发送脚本并缓存，调用方无感知。
+ *
+ * 内置脚本：incr_with_ttl、compare_and_set、capped_push、delete_if_equals，返回值均为 Long。
+ */
+@Slf4j
+@Component
+public class RedisScriptRegistry {
+
+    private static final String SCRIPT_LOCATION = "classpath*:lua/*.lua";
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    private final Map<String, RedisScript<?>> scripts = new ConcurrentHashMap<>();
+
+    private volatile boolean preloaded;
+
+    @PostConstruct
+    public void loadScripts() throws IOException {
+        Resource[] resources = new PathMatchingResourcePatternResolver().getResources(SCRIPT_LOCATION);
+        for (Resource resource : resources) {
+            String filename = resource.getFilename();
+            String name = filename.substring(0, filename.length() - ".lua".length());
+            register(name, resource, Long.class);
+        }
+        preload();
+    }
+
+    /**
+     * 注册自定义脚本
+     *
+     * @param name
+     * @param script
+     * @param resultType 返回值类型：Long、Boolean、List、String
+     */
+    public <T> void register(String name, String script, Class<T> resultType) {
+        add(name, new DefaultRedisScript<>(script, resultType));
+    }
+
+    /**
+     * 注册 classpath 上的脚本文件
+     *
+     * @param name
+     * @param resource
+     * @param resultType 返回值类型：Long、Boolean、List、String
+     */
+    public <T> void register(String name, Resource resource, Class<T> resultType) {
+        DefaultRedisScript<T> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(resource));
+        script.setResultType(resultType);
+        add(name, script);
+    }
+
+    /**
+     * 通过 EVALSHA 执行已注册的脚本
+     *
+     * @param name 脚本名
+     * @param keys
+     * @param args
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String name, List<String> keys, Object... args) {
+        RedisScript<T> script = (RedisScript<T>) scripts.get(name);
+        if (script == null) {
+            throw new IllegalArgumentException("Unknown redis script: " + name);
+        }
+        return redisTemplate.execute(script, keys, args);
+    }
+
+    /**
+     * 把所有脚本 SCRIPT LOAD 到服务端，之后的 EVALSHA 无需再传脚本内容。
+     * Redis 暂不可用时只记录警告，首次执行时会通过 EVAL 自动补加载。
+     */
+    public void preload() {
+        if (load(scripts.values())) {
+            log.info("预加载Redis脚本: {}", scripts.keySet());
+        }
+        preloaded = true;
+    }
+
+    /**
+     * 启动预加载之后注册的脚本（例如其他组件 @PostConstruct 中注册的）立即加载，
+     * 否则服务端尚未缓存这些脚本时，每个脚本的首次执行都要多一次 NOSCRIPT 失败和 EVAL
+     */
+    private void add(String name, RedisScript<?> script) {
+        scripts.put(name, script);
+        if (preloaded && load(Collections.singletonList(script))) {
+            log.info("加载Redis脚本: {}", name);
+        }
+    }
+
+    private boolean load(Collection<RedisScript<?>> toLoad) {
+        try {
+            redisTemplate.execute((RedisCallback<Void>) connection -> {
+                for (RedisScript<?> script : toLoad) {
+                    connection.scriptingCommands().scriptLoad(script.getScriptAsString().getBytes(StandardCharsets.UTF_8));
+                }
+                return null;
+            });
+            return true;
+        } catch (Exception e) {
+            log.warn("预加载Redis脚本失败，将在首次执行时加载: {}", e.getMessage());
+            return false;
+        }
+    }
+
+}
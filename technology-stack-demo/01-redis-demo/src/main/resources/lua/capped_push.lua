@@ -0,0 +1,7 @@
+-- 定长列表：LPUSH 后裁剪，只保留最新的 N 个元素
+-- KEYS[1]: 列表key
+-- ARGV[1]: 元素  ARGV[2]: 最大长度
+-- 返回: 裁剪后的列表长度
+redis.call('LPUSH', KEYS[1], ARGV[1])
+redis.call('LTRIM', KEYS[1], 0, tonumber(ARGV[2]) - 1)
+return redis.call('LLEN', KEYS[1])
@@ -0,0 +1,20 @@
+-- 比较并设置：当前值等于期望值时才写入新值
+-- KEYS[1]: key
+-- ARGV[1]: 期望值  ARGV[2]: 新值  ARGV[3]: 过期时间（秒），<=0 表示不过期
+-- ARGV[4]: 为 1 时期望 key 不存在（此时忽略 ARGV[1]）
+-- 返回: 1 写入成功，0 当前值不匹配
+local current = redis.call('GET', KEYS[1])
+if ARGV[4] == '1' then
+    if current then
+        return 0
+    end
+elseif current ~= ARGV[1] then
+    return 0
+end
+local ttl = tonumber(ARGV[3])
+if ttl > 0 then
+    redis.call('SET', KEYS[1], ARGV[2], 'EX', ttl)
+else
+    redis.call('SET', KEYS[1], ARGV[2])
+end
+return 1
@@ -0,0 +1,10 @@
+-- 多key条件删除：所有 KEYS[i] 的值都等于 ARGV[i] 时才全部删除
+-- KEYS: 待删除的key（集群模式下需位于同一 slot，可使用 hash tag）
+-- ARGV: 与 KEYS 一一对应的期望值
+-- 返回: 删除的key数量，任一不匹配时返回 0
+for i = 1, #KEYS do
+    if redis.call('GET', KEYS[i]) ~= ARGV[i] then
+        return 0
+    end
+end
+return redis.call('DEL', unpack(KEYS))
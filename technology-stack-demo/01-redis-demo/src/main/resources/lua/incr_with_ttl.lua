@@ -0,0 +1,9 @@
+-- 原子自增并在首次创建时设置过期时间
+-- KEYS[1]: 计数器key
+-- ARGV[1]: 增量  ARGV[2]: 过期时间（秒）
+-- 返回: 自增后的值
+local value = redis.call('INCRBY', KEYS[1], ARGV[1])
+if redis.call('TTL', KEYS[1]) == -1 then
+    redis.call('EXPIRE', KEYS[1], ARGV[2])
+end
+return value
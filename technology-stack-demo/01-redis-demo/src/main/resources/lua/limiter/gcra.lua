@@ -0,0 +1,32 @@
+-- GCRA（通用信元速率算法）：只存一个理论到达时间 TAT，内存和计算都是 O(1)
+-- KEYS[1]: 限流key
+-- ARGV[1]: 每个许可的发放间隔（毫秒，可为小数）  ARGV[2]: 突发容量
+-- ARGV[3]: 申请许可数  ARGV[4]: 1 允许部分授予
+-- 返回: {授予许可数, 剩余许可数, 建议重试等待毫秒}
+if redis.replicate_commands then
+    redis.replicate_commands()
+end
+local t = redis.call('TIME')
+local now = tonumber(t[1]) * 1000 + tonumber(t[2]) / 1000
+local emission = tonumber(ARGV[1])
+local tolerance = emission * tonumber(ARGV[2])
+local permits = tonumber(ARGV[3])
+
+local tat = tonumber(redis.call('GET', KEYS[1])) or now
+if tat < now then
+    tat = now
+end
+local available = math.floor((tolerance - (tat - now)) / emission)
+local granted = 0
+if available >= permits then
+    granted = permits
+elseif ARGV[4] == '1' and available > 0 then
+    granted = available
+end
+
+if granted == 0 then
+    return {0, math.max(available, 0), math.ceil(tat + emission * permits - tolerance - now)}
+end
+local newTat = tat + emission * granted
+redis.call('SET', KEYS[1], string.format('%.3f', newTat), 'PX', math.ceil(newTat - now))
+return {granted, available - granted, 0}
@@ -0,0 +1,36 @@
+-- 滑动窗口日志：ZSET 记录窗口内每个许可的时间戳
+-- KEYS[1]: 限流key
+-- ARGV[1]: 窗口内许可上限  ARGV[2]: 窗口长度（毫秒）  ARGV[3]: 申请许可数
+-- ARGV[4]: 本次请求唯一标识  ARGV[5]: 1 允许部分授予
+-- 返回: {授予许可数, 剩余许可数, 建议重试等待毫秒}
+if redis.replicate_commands then
+    redis.replicate_commands()
+end
+local t = redis.call('TIME')
+local now = tonumber(t[1]) * 1000 + math.floor(tonumber(t[2]) / 1000)
+local limit = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+local permits = tonumber(ARGV[3])
+
+redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', now - window)
+local available = limit - redis.call('ZCARD', KEYS[1])
+local granted = 0
+if available >= permits then
+    granted = permits
+elseif ARGV[5] == '1' and available > 0 then
+    granted = available
+end
+
+if granted == 0 then
+    local retry = window
+    local oldest = redis.call('ZRANGE', KEYS[1], 0, 0, 'WITHSCORES')
+    if oldest[2] then
+        retry = tonumber(oldest[2]) + window - now
+    end
+    return {0, available, retry}
+end
+for i = 1, granted do
+    redis.call('ZADD', KEYS[1], now, ARGV[4] .. ':' .. i)
+end
+redis.call('PEXPIRE', KEYS[1], window)
+return {granted, available - granted, 0}
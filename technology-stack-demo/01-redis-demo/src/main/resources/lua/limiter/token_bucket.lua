@@ -0,0 +1,33 @@
+-- 令牌桶：按时间匀速补充令牌，桶满为止
+-- KEYS[1]: 限流key
+-- ARGV[1]: 桶容量  ARGV[2]: 每毫秒补充的令牌数  ARGV[3]: 申请许可数  ARGV[4]: 1 允许部分授予
+-- 返回: {授予许可数, 剩余许可数, 建议重试等待毫秒}
+if redis.replicate_commands then
+    redis.replicate_commands()
+end
+local t = redis.call('TIME')
+local now = tonumber(t[1]) * 1000 + math.floor(tonumber(t[2]) / 1000)
+local capacity = tonumber(ARGV[1])
+local rate = tonumber(ARGV[2])
+local permits = tonumber(ARGV[3])
+
+local data = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+local tokens = tonumber(data[1]) or capacity
+local ts = tonumber(data[2]) or now
+tokens = math.min(capacity, tokens + math.max(0, now - ts) * rate)
+
+local granted = 0
+if tokens >= permits then
+    granted = permits
+elseif ARGV[4] == '1' and tokens >= 1 then
+    granted = math.floor(tokens)
+end
+tokens = tokens - granted
+
+redis.call('HSET', KEYS[1], 'tokens', string.format('%.6f', tokens), 'ts', now)
+redis.call('PEXPIRE', KEYS[1], math.ceil(capacity / rate))
+local retry = 0
+if granted == 0 then
+    retry = math.ceil((permits - tokens) / rate)
+end
+return {granted, math.floor(tokens), retry}
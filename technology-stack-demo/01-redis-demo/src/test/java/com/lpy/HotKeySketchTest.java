@@ -0,0 +1,28 @@
+package com.lpy;
+
+import com.lpy.metrics.HotKeySketch;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HotKeySketchTest {
+
+    @Test
+    public void shouldKeepHeavyHittersUnderChurn() {
+        HotKeySketch sketch = new HotKeySketch(10);
+        for (int i = 0; i < 10000; i++) {
+            sketch.offer("hot:" + (i % 3));
+            sketch.offer("cold:" + i);
+        }
+
+        Map<String, long[]> top = sketch.top(3);
+
+        assertEquals(20000, sketch.total());
+        assertTrue(top.containsKey("hot:0"));
+        assertTrue(top.containsKey("hot:1"));
+        assertTrue(top.containsKey("hot:2"));
+    }
+
+}
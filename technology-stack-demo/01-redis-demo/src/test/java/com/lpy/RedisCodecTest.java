@@ -0,0 +1,95 @@
+package com.lpy;
+
+import com.lpy.codec.JacksonValueCodec;
+import com.lpy.codec.RedisCodecRegistry;
+import com.lpy.codec.RedisValueCodec;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 编解码正确性和体积对比，耗时对比见 benchmark 下的 JMH 基准
+ */
+public class RedisCodecTest {
+
+    private RedisCodecRegistry registry;
+
+    @BeforeEach
+    public void setUp() {
+        registry = new RedisCodecRegistry();
+        ReflectionTestUtils.setField(registry, "defaultCodecName", "json");
+        ReflectionTestUtils.setField(registry, "prefixMappings", Arrays.asList("user:=cbor", "user:vip:=smile"));
+        ReflectionTestUtils.setField(registry, "compressThreshold", 1024);
+        registry.init();
+    }
+
+    @Test
+    public void shouldRoundTripWithPrefixCodec() {
+        Profile profile = sampleProfile(10);
+
+        assertEquals("cbor", registry.codecFor("user:1").name());
+        assertEquals("smile", registry.codecFor("user:vip:1").name());
+        assertEquals("json", registry.codecFor("order:1").name());
+        assertEquals(profile, registry.decode(registry.encode("user:1", profile), Profile.class));
+        assertEquals(profile, registry.decode(registry.encode("user:vip:1", profile), Profile.class));
+    }
+
+    @Test
+    public void shouldReadLegacyPlainValues() {
+        assertEquals("lpy", registry.decode("lpy".getBytes(StandardCharsets.UTF_8), String.class));
+
+        byte[] legacyJson = "{\"name\":\"lpy\",\"age\":18,\"tags\":[]}".getBytes(StandardCharsets.UTF_8);
+        assertEquals("lpy", registry.decode(legacyJson, Profile.class).getName());
+    }
+
+    @Test
+    public void shouldCompressLargeValues() throws Exception {
+        Profile profile = sampleProfile(500);
+        byte[] plain = JacksonValueCodec.json().encode(profile);
+        byte[] encoded = registry.encode("order:1", profile);
+
+        assertTrue(encoded.length < plain.length);
+        assertEquals(profile, registry.decode(encoded, Profile.class));
+    }
+
+    @Test
+    public void binaryCodecsShouldBeSmallerThanJson() {
+        Profile profile = sampleProfile(50);
+        byte[] json = registry.encode(JacksonValueCodec.json(), profile);
+        for (RedisValueCodec codec : Arrays.asList(JacksonValueCodec.cbor(), JacksonValueCodec.smile())) {
+            byte[] bytes = registry.encode(codec, profile);
+
+            assertTrue(bytes.length < json.length, codec.name());
+            assertEquals(profile, registry.decode(bytes, Profile.class));
+        }
+    }
+
+    private static Profile sampleProfile(int tags) {
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < tags; i++) {
+            values.add("tag-" + i);
+        }
+        return new Profile("lpy", 18, tags == 0 ? Collections.emptyList() : values);
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Profile {
+        private String name;
+        private int age;
+        private List<String> tags;
+    }
+
+}
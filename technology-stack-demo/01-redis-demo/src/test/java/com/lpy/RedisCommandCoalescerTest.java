@@ -0,0 +1,111 @@
+package com.lpy;
+
+import com.lpy.utils.RedisBatch;
+import com.lpy.utils.RedisCommandCoalescer;
+import com.lpy.utils.RedisOperator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class RedisCommandCoalescerTest {
+
+    private RedisOperator redisOperator;
+
+    private RedisCommandCoalescer coalescer;
+
+    @BeforeEach
+    public void setUp() {
+        redisOperator = mock(RedisOperator.class);
+        coalescer = new RedisCommandCoalescer();
+        ReflectionTestUtils.setField(coalescer, "redisOperator", redisOperator);
+        // 窗口足够长，凑满 maxBatchSize 才发送，保证每批的组成是确定的
+        ReflectionTestUtils.setField(coalescer, "windowMicros", TimeUnit.SECONDS.toMicros(5));
+        ReflectionTestUtils.setField(coalescer, "queueCapacity", 100);
+    }
+
+    @Test
+    public void shouldMergeGetsIntoSingleMget() throws Exception {
+        ReflectionTestUtils.setField(coalescer, "maxBatchSize", 3);
+        when(redisOperator.mget(Arrays.asList("a", "b", "c"))).thenReturn(Arrays.asList("1", null, "3"));
+        coalescer.start();
+
+        CompletableFuture<String> a = coalescer.get("a");
+        CompletableFuture<String> b = coalescer.get("b");
+        CompletableFuture<String> c = coalescer.get("c");
+
+        assertEquals("1", a.get(5, TimeUnit.SECONDS));
+        assertNull(b.get(5, TimeUnit.SECONDS));
+        assertEquals("3", c.get(5, TimeUnit.SECONDS));
+        verify(redisOperator, times(1)).mget(any());
+        verify(redisOperator, never()).batch();
+        assertEquals(1, coalescer.getBatchCount());
+        assertEquals(3, coalescer.getMaxBatchSize());
+        coalescer.stop();
+    }
+
+    @Test
+    public void shouldPipelineMixedCommands() throws Exception {
+        ReflectionTestUtils.setField(coalescer, "maxBatchSize", 3);
+        RedisBatch batch = mock(RedisBatch.class, RETURNS_SELF);
+        when(redisOperator.batch()).thenReturn(batch);
+        when(batch.execute()).thenReturn(Arrays.asList("1", "f", 5L));
+        coalescer.start();
+
+        CompletableFuture<String> get = coalescer.get("a");
+        CompletableFuture<String> hget = coalescer.hget("h", "f");
+        CompletableFuture<Long> incr = coalescer.incr("n", 2);
+
+        assertEquals("1", get.get(5, TimeUnit.SECONDS));
+        assertEquals("f", hget.get(5, TimeUnit.SECONDS));
+        assertEquals(5L, incr.get(5, TimeUnit.SECONDS));
+        verify(batch).get("a");
+        verify(batch).hget("h", "f");
+        verify(batch).incr("n", 2);
+        verify(batch).chunkSize(3);
+        verify(redisOperator, never()).mget(any());
+        coalescer.stop();
+    }
+
+    @Test
+    public void shouldCompleteRequestsQueuedDuringShutdown() throws Exception {
+        ReflectionTestUtils.setField(coalescer, "maxBatchSize", 1);
+        CountDownLatch entered = new CountDownLatch(1);
+        when(redisOperator.mget(any())).thenAnswer(invocation -> {
+            entered.countDown();
+            // 模拟卡住的 Redis 调用，只能被 stop 的中断唤醒
+            new CountDownLatch(1).await();
+            return null;
+        });
+        coalescer.start();
+
+        CompletableFuture<String> inFlight = coalescer.get("a");
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        List<CompletableFuture<String>> queued = Arrays.asList(coalescer.get("b"), coalescer.get("c"));
+
+        coalescer.stop();
+
+        assertFailsWith(inFlight, InterruptedException.class);
+        for (CompletableFuture<String> future : queued) {
+            assertFailsWith(future, RejectedExecutionException.class);
+        }
+        assertFailsWith(coalescer.get("d"), RejectedExecutionException.class);
+    }
+
+    private static void assertFailsWith(CompletableFuture<?> future, Class<? extends Throwable> type) {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(type, e.getCause());
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.lpy;
+
+import com.lpy.utils.RedisKeys;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RedisKeysTest {
+
+    @Test
+    public void shouldCoLocateKeysWithSameTag() {
+        String profile = RedisKeys.tagged("user", "1001", "profile");
+        String orders = RedisKeys.tagged("user", "1001", "orders");
+
+        assertEquals("user:{1001}:profile", profile);
+        assertEquals(RedisKeys.slot(profile), RedisKeys.slot(orders));
+        assertTrue(RedisKeys.sameSlot(Arrays.asList(profile, orders)));
+        assertFalse(RedisKeys.sameSlot(Arrays.asList("foo", "bar")));
+        assertEquals(12182, RedisKeys.slot("foo"));
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.lpy;
+
+import com.lpy.cache.RedisNearCache;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RedisNearCacheTest {
+
+    @Test
+    public void shouldServeRepeatedReadsLocally() {
+        RedisNearCache cache = new RedisNearCache(100, 60000, Collections.singletonList("hot:"));
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("v", cache.get("hot:a", () -> { loads.incrementAndGet(); return "v"; }));
+        assertEquals("v", cache.get("hot:a", () -> { loads.incrementAndGet(); return "v"; }));
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertFalse(cache.isCacheable("cold:a"));
+    }
+
+    @Test
+    public void shouldReloadAfterInvalidate() {
+        RedisNearCache cache = new RedisNearCache(100, 60000, Collections.singletonList("hot:"));
+        cache.hget("hot:h", "f", () -> "v1");
+
+        cache.invalidate("hot:h");
+
+        assertEquals("v2", cache.hget("hot:h", "f", () -> "v2"));
+    }
+
+    @Test
+    public void shouldNotCacheValueLoadedDuringInvalidation() {
+        RedisNearCache cache = new RedisNearCache(100, 60000, Collections.singletonList("hot:"));
+        cache.get("hot:a", () -> {
+            cache.invalidate("hot:a");
+            return "stale";
+        });
+
+        assertEquals("fresh", cache.get("hot:a", () -> "fresh"));
+    }
+
+    @Test
+    public void shouldCacheOtherKeysLoadedDuringInvalidation() {
+        RedisNearCache cache = new RedisNearCache(100, 60000, Collections.singletonList("hot:"));
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("hot:b", () -> {
+            loads.incrementAndGet();
+            cache.invalidate("hot:a");
+            return "b";
+        });
+
+        assertEquals("b", cache.get("hot:b", () -> { loads.incrementAndGet(); return "b"; }));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void shouldEvictEldestWhenFull() {
+        RedisNearCache cache = new RedisNearCache(2, 60000, Collections.singletonList("hot:"));
+        cache.get("hot:1", () -> "1");
+        cache.get("hot:2", () -> "2");
+        cache.get("hot:3", () -> "3");
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+    }
+
+}
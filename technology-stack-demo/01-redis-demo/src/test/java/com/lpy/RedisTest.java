@@ -1,6 +1,16 @@
 package com.lpy;
 
 
+import com.lpy.cache.RedisCacheLoader;
+import com.lpy.limiter.RateLimitResult;
+import com.lpy.limiter.RateLimitRule;
+import com.lpy.limiter.RedisRateLimiter;
+import com.lpy.metrics.RedisClientMetrics;
+import com.lpy.probabilistic.BloomFilter;
+import com.lpy.probabilistic.RedisProbabilisticOperator;
+import com.lpy.queue.RedisStreamQueue;
+import com.lpy.queue.RedisStreamQueueFactory;
+import com.lpy.utils.ReactiveRedisOperator;
 import com.lpy.utils.RedisOperator;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
@@ -9,6 +19,23 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
 @ExtendWith(SpringExtension.class)
 @Slf4j
 @SpringBootTest
@@ -17,6 +44,24 @@ public class RedisTest {
     @Autowired
     private RedisOperator redisOperator;
 
+    @Autowired
+    private ReactiveRedisOperator reactiveRedisOperator;
+
+    @Autowired
+    private RedisRateLimiter rateLimiter;
+
+    @Autowired
+    private RedisCacheLoader cacheLoader;
+
+    @Autowired
+    private RedisStreamQueueFactory streamQueueFactory;
+
+    @Autowired
+    private RedisProbabilisticOperator probabilisticOperator;
+
+    @Autowired
+    private RedisClientMetrics clientMetrics;
+
 
     @Test
     public void redisTest(){
@@ -24,6 +69,155 @@ public class RedisTest {
         log.info(redisOperator.get("name"));
     }
 
+    @Test
+    public void clientMetricsTest(){
+        redisOperator.set("metrics:name", "lpy");
+        redisOperator.batchGet(Arrays.asList("metrics:name", "name"));
+        log.info("inflight={}, failed={}", clientMetrics.getInflight(), clientMetrics.getFailed());
+        redisOperator.del("metrics:name");
+    }
+
+    @Test
+    public void batchTest(){
+        List<Object> results = redisOperator.batch()
+                .set("batch:name", "lpy")
+                .incr("batch:counter", 1)
+                .expire("batch:counter", 60)
+                .hset("batch:hash", "field", "value")
+                .get("batch:name")
+                .execute();
+        log.info("batch results: {}", results);
+    }
+
+    @Test
+    public void reactiveTest(){
+        String value = reactiveRedisOperator.set("reactive:name", "lpy")
+                .then(reactiveRedisOperator.get("reactive:name"))
+                .block();
+        log.info(value);
+    }
+
+    @Test
+    public void scriptTest(){
+        log.info("incrWithTtl: {}", redisOperator.incrWithTtl("script:counter", 1, 60));
+        redisOperator.set("script:lock", "owner-1");
+        log.info("compareAndSet: {}", redisOperator.compareAndSet("script:lock", "owner-1", "owner-2", 60));
+        log.info("cappedPush: {}", redisOperator.cappedPush("script:list", "item", 10));
+        log.info("deleteIfEquals: {}", redisOperator.deleteIfEquals(
+                Collections.singletonList("script:lock"), Collections.singletonList("owner-2")));
+    }
+
+    @Test
+    public void rateLimiterTest(){
+        // 每次运行使用新的 key，避免上一次运行留下的限流状态
+        String suffix = String.valueOf(System.nanoTime());
+        // 周期取一分钟，突发额度 10 个，测试期间不会补充新的许可
+        RateLimitRule rule = RateLimitRule.gcra(10, Duration.ofMinutes(1));
+        int gcraAllowed = 0;
+        for (int i = 0; i < 12; i++) {
+            RateLimitResult result = rateLimiter.tryAcquire("test-user:" + suffix, rule);
+            log.info("gcra: {}", result);
+            if (result.isAllowed()) {
+                gcraAllowed++;
+            }
+        }
+        assertEquals(10, gcraAllowed);
+
+        RateLimitRule batched = RateLimitRule.tokenBucket(1000, Duration.ofSeconds(1)).withLease(50, 100);
+        long allowedBefore = rateLimiter.getAllowedCount();
+        long redisCallsBefore = rateLimiter.getRedisCallCount();
+        for (int i = 0; i < 200; i++) {
+            rateLimiter.tryAcquireBatched("test-api:" + suffix, batched);
+        }
+        long redisCalls = rateLimiter.getRedisCallCount() - redisCallsBefore;
+        log.info("allowed={}, denied={}, redisCalls={}, local={}", rateLimiter.getAllowedCount(),
+                rateLimiter.getDeniedCount(), rateLimiter.getRedisCallCount(), rateLimiter.getLocalDecisionCount());
+        assertEquals(200, rateLimiter.getAllowedCount() - allowedBefore);
+        // 每次预取 50 个许可，约 4 次 Redis 调用即可完成 200 次判定，租约过期续租时略多
+        assertTrue(redisCalls <= 8, "redisCalls=" + redisCalls);
+    }
+
+    @Test
+    public void cacheLoaderTest() throws Exception {
+        cacheLoader.evict("loader:user:1");
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<String> loader = () -> {
+            loads.incrementAndGet();
+            try {
+                // 回源足够慢，保证并发请求都落在同一次加载期间
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "lpy";
+        };
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return cacheLoader.getOrLoad("loader:user:1", 60, loader);
+                }));
+            }
+            start.countDown();
+            for (Future<String> future : futures) {
+                assertEquals("lpy", future.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+
+        // 命中缓存，不再回源
+        assertEquals("lpy", cacheLoader.getOrLoad("loader:user:1", 60, loader));
+        assertEquals(1, loads.get());
+
+        // 不存在的数据缓存空值，第二次不再回源
+        cacheLoader.evict("loader:user:404");
+        AtomicInteger missingLoads = new AtomicInteger();
+        assertNull(cacheLoader.getOrLoad("loader:user:404", 60, () -> { missingLoads.incrementAndGet(); return null; }));
+        assertNull(cacheLoader.getOrLoad("loader:user:404", 60, () -> { missingLoads.incrementAndGet(); return null; }));
+        assertEquals(1, missingLoads.get());
+    }
+
+    @Test
+    public void streamQueueTest() throws InterruptedException {
+        RedisStreamQueue queue = streamQueueFactory.create("queue:test", "test-group");
+        queue.add(Collections.singletonMap("orderId", "1001"));
+        queue.start(Collections.singletonList("consumer-1"), record -> log.info("consume: {}", record.getValue()));
+        Thread.sleep(3000);
+        log.info("processed: {}", queue.getProcessedCount());
+        queue.close();
+    }
+
+    @Test
+    public void probabilisticTest(){
+        BloomFilter bloomFilter = probabilisticOperator.bloomFilter("test-users", 1000, 0.01);
+        bloomFilter.addAll(Arrays.asList("u1", "u2", "u3"));
+        log.info("bloom: {}", bloomFilter.mightContainAll(Arrays.asList("u1", "u4")));
+        bloomFilter.delete();
+
+        probabilisticOperator.pfadd("uv:test", "u1", "u2", "u1");
+        log.info("uv: {}", probabilisticOperator.pfcount("uv:test"));
+
+        probabilisticOperator.setbit("active:test", 1001, true);
+        log.info("active: {}", probabilisticOperator.bitcount("active:test"));
+    }
+
+    @Test
+    public void scanTest(){
+        for (int i = 0; i < 10; i++) {
+            redisOperator.set("scan:test:" + i, String.valueOf(i));
+        }
+        try (Stream<String> keys = redisOperator.scan("scan:test:*", 100)) {
+            log.info("scan keys: {}", keys.collect(Collectors.toSet()));
+        }
+        log.info("deleted: {}", redisOperator.deleteByPattern("scan:test:*", 100));
+    }
+
 
 
 }
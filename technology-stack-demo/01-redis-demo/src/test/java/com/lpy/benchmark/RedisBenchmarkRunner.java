@@ -0,0 +1,35 @@
+package com.lpy.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 基准测试入口
+ *
+ * mvn test-compile exec:exec -P benchmark -pl 01-redis-demo [-Dbenchmark.include=RedisReadBenchmark.mget]
+ *
+ * 吞吐量（ops/ms）和延迟分位数（SampleTime 模式下的 p50/p90/p99/p99.9）输出到控制台，
+ * 完整结果写入 target/jmh-result.json，可导入 https://jmh.morethan.io 对比。
+ */
+public class RedisBenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : RedisBenchmarkRunner.class.getPackage().getName() + ".*";
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.include(include)
+                .jvmArgsAppend("-Xmx2g")
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh-result.json");
+        // 连接外部 Redis 时透传给 fork 出的 JVM
+        if (System.getProperty("redis.host") != null) {
+            builder.jvmArgsAppend("-Dredis.host=" + System.getProperty("redis.host"),
+                    "-Dredis.port=" + System.getProperty("redis.port", "6379"));
+        }
+        Options options = builder.build();
+        new Runner(options).run();
+    }
+
+}
@@ -0,0 +1,116 @@
+package com.lpy.benchmark;
+
+import com.lpy.RedisDemoApplication;
+import com.lpy.utils.RedisOperator;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 基准测试公共状态：每个 fork 启动一个内嵌 Redis 和一份 Spring 上下文
+ *
+ * 指定 -Dredis.host（可选 -Dredis.port）时改为连接已有的 Redis，不启动内嵌服务。
+ * 默认关闭本地一级缓存、命令合并和耗时统计切面，测量的是 RedisOperator 到 Redis 的真实开销。
+ */
+public abstract class RedisBenchmarkState {
+
+    protected static final String KEY_PREFIX = "bench:";
+
+    protected ConfigurableApplicationContext context;
+
+    protected RedisOperator redisOperator;
+
+    private RedisServer redisServer;
+
+    @Setup(Level.Trial)
+    public void startRedis() throws IOException {
+        String host = System.getProperty("redis.host");
+        int port;
+        if (host == null) {
+            host = "127.0.0.1";
+            port = freePort();
+            redisServer = new RedisServer(port);
+            redisServer.start();
+        } else {
+            port = Integer.getInteger("redis.port", 6379);
+        }
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.redis.host", host);
+        properties.put("spring.redis.port", port);
+        properties.put("spring.aop.auto", false);
+        // log4j2.xml 中 lettuce 为 DEBUG 级别，逐条命令打日志会淹没真实耗时
+        properties.put("logging.level.root", "warn");
+        properties.put("redis.near-cache.enabled", false);
+        properties.put("redis.coalescing.enabled", false);
+        configure(properties);
+
+        // 以命令行参数传入，优先级高于 application.yml
+        String[] args = properties.entrySet().stream()
+                .map(e -> "--" + e.getKey() + "=" + e.getValue())
+                .toArray(String[]::new);
+        context = new SpringApplicationBuilder(RedisDemoApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args);
+        redisOperator = context.getBean(RedisOperator.class);
+        prepare();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopRedis() throws IOException {
+        if (context != null) {
+            redisOperator.deleteByPattern(KEY_PREFIX + "*", 1000);
+            context.close();
+        }
+        if (redisServer != null) {
+            redisServer.stop();
+        }
+    }
+
+    /**
+     * 补充 Spring 配置，例如连接池参数
+     */
+    protected void configure(Map<String, Object> properties) {
+    }
+
+    /**
+     * 上下文启动后准备测试数据
+     */
+    protected abstract void prepare();
+
+    /**
+     * poolSize 为 0 表示所有线程共享一条连接且不开连接池，大于 0 时所有命令都从连接池借用连接
+     */
+    protected void applyPoolSize(Map<String, Object> properties, int poolSize) {
+        properties.put("spring.redis.lettuce.pool.enabled", poolSize > 0);
+        properties.put("redis.client.mode", poolSize > 0 ? "pooled" : "shared");
+        if (poolSize > 0) {
+            properties.put("spring.redis.lettuce.pool.max-active", poolSize);
+            properties.put("spring.redis.lettuce.pool.max-idle", poolSize);
+        }
+    }
+
+    protected static String value(int size) {
+        StringBuilder builder = new StringBuilder(size);
+        for (int i = 0; i < size; i++) {
+            builder.append((char) ('a' + i % 26));
+        }
+        return builder.toString();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+}
@@ -0,0 +1,90 @@
+package com.lpy.benchmark;
+
+import lombok.Data;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * setObject/getObject 在不同编解码器下的往返开销，包含序列化、压缩和网络传输
+ *
+ * 编解码器由 key 前缀决定（见 redis.codec.prefixes），这里按编解码器名覆盖前缀映射。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class RedisCodecBenchmark extends RedisBenchmarkState {
+
+    @Param({"json", "cbor", "smile"})
+    private String codec;
+
+    /**
+     * 对象中的条目数，10 条约 500 字节（不压缩），1000 条约 50KB（超过阈值会压缩）
+     */
+    @Param({"10", "1000"})
+    private int entries;
+
+    private String key;
+
+    private Payload payload;
+
+    @Override
+    protected void configure(Map<String, Object> properties) {
+        properties.put("redis.codec.default", codec);
+        properties.put("redis.codec.prefixes", "");
+    }
+
+    @Override
+    protected void prepare() {
+        key = KEY_PREFIX + "codec:" + codec + ":" + entries;
+        payload = new Payload();
+        payload.setId(1L);
+        payload.setName("benchmark");
+        payload.setItems(new ArrayList<>(entries));
+        for (int i = 0; i < entries; i++) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("id", i);
+            item.put("title", "item-" + i);
+            item.put("price", i * 1.5);
+            payload.getItems().add(item);
+        }
+        redisOperator.setObject(key, payload);
+    }
+
+    @Benchmark
+    public void setObject() {
+        redisOperator.setObject(key, payload);
+    }
+
+    @Benchmark
+    public Payload getObject() {
+        return redisOperator.getObject(key, Payload.class);
+    }
+
+    @Data
+    public static class Payload {
+
+        private Long id;
+
+        private String name;
+
+        private List<Map<String, Object>> items;
+    }
+
+}
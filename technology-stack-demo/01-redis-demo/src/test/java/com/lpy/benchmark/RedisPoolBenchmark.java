@@ -0,0 +1,68 @@
+package com.lpy.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 16 个线程并发读写时，共享单连接与不同大小连接池的对比
+ *
+ * Lettuce 的共享连接是多路复用的，小命令下通常不比连接池差；
+ * 大值或阻塞命令会占住共享连接，此时连接池的尾延迟更低。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 3)
+@Threads(16)
+@Fork(1)
+public class RedisPoolBenchmark extends RedisBenchmarkState {
+
+    /**
+     * 0 表示共享单连接
+     */
+    @Param({"0", "4", "16"})
+    private int poolSize;
+
+    @Param({"16", "65536"})
+    private int valueSize;
+
+    private String key;
+
+    private String value;
+
+    @Override
+    protected void configure(Map<String, Object> properties) {
+        applyPoolSize(properties, poolSize);
+    }
+
+    @Override
+    protected void prepare() {
+        key = KEY_PREFIX + "pool:" + valueSize;
+        value = value(valueSize);
+        redisOperator.set(key, value);
+    }
+
+    @Benchmark
+    public String get() {
+        return redisOperator.get(key);
+    }
+
+    @Benchmark
+    public void set() {
+        redisOperator.set(key, value);
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.lpy.benchmark;
+
+import com.lpy.utils.RedisBatch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一次读取 keyCount 个 key 的几种方式对比：逐个 GET、MGET、pipeline（batchGet / batch 构建器）
+ *
+ * 单个 key 的网络往返是固定开销，值越小、key 越多，合并后的收益越明显；值达到 MB 级时瓶颈转为带宽和解码。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class RedisReadBenchmark extends RedisBenchmarkState {
+
+    @Param({"16", "1024", "65536", "1048576"})
+    private int valueSize;
+
+    @Param({"10", "100"})
+    private int keyCount;
+
+    private List<String> keys;
+
+    @Override
+    protected void prepare() {
+        keys = new ArrayList<>(keyCount);
+        Map<String, String> values = new HashMap<>();
+        String value = value(valueSize);
+        for (int i = 0; i < keyCount; i++) {
+            String key = KEY_PREFIX + "read:" + valueSize + ":" + i;
+            keys.add(key);
+            values.put(key, value);
+        }
+        redisOperator.mset(values);
+    }
+
+    @Benchmark
+    public void singleGet(Blackhole blackhole) {
+        for (String key : keys) {
+            blackhole.consume(redisOperator.get(key));
+        }
+    }
+
+    @Benchmark
+    public List<String> mget() {
+        return redisOperator.mget(keys);
+    }
+
+    @Benchmark
+    public List<Object> batchGet() {
+        return redisOperator.batchGet(keys);
+    }
+
+    @Benchmark
+    public List<Object> batchBuilder() {
+        RedisBatch batch = redisOperator.batch();
+        for (String key : keys) {
+            batch.get(key);
+        }
+        return batch.execute();
+    }
+
+}
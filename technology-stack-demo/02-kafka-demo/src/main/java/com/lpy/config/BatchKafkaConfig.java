@@ -1,17 +1,30 @@
 package com.lpy.config;
 
+import com.lpy.consumer.ParallelBatchProcessor;
+import com.lpy.service.DeadLetterReplayService;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.FixedBackOff;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Configuration
 public class BatchKafkaConfig {
@@ -22,6 +35,36 @@ public class BatchKafkaConfig {
     @Value("${spring.kafka.consumer.group-id}")
     private String groupId;
 
+    /**
+     * 批内并行处理的线程数
+     */
+    @Value("${kafka.batch.parallelism:8}")
+    private int parallelism;
+
+    /**
+     * 一批记录的处理时间上限，超时后不再开始新的记录
+     */
+    @Value("${kafka.batch.timeout:60000}")
+    private long timeoutMillis;
+
+    /**
+     * 超时后等待正在处理的记录结束的最长时间，timeout + drain-timeout 需要小于 max.poll.interval.ms
+     */
+    @Value("${kafka.batch.drain-timeout:5000}")
+    private long drainTimeoutMillis;
+
+    /**
+     * 失败记录的重试次数和间隔，用完后发送到死信主题 <topic>.DLT
+     */
+    @Value("${kafka.batch.retry-attempts:2}")
+    private long retryAttempts;
+
+    @Value("${kafka.batch.retry-interval:1000}")
+    private long retryInterval;
+
+    @Autowired
+    private KafkaTemplate<String, String> stringKafkaTemplate;
+
     /**
      * 批量消费者工厂配置
      */
@@ -50,8 +93,39 @@ public class BatchKafkaConfig {
         factory.setBatchListener(true);
         // 设置确认模式为批量确认
         factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        // 监听器抛出 BatchListenerFailedException 时，提交失败记录之前的位移，只重试失败记录及之后的记录
+        factory.setCommonErrorHandler(batchErrorHandler());
         // 设置并发级别
         factory.setConcurrency(1);
         return factory;
     }
+
+    /**
+     * 批量监听错误处理：失败记录按固定间隔重试，仍失败则发送到死信主题并提交，继续处理后续记录
+     */
+    @Bean
+    public DefaultErrorHandler batchErrorHandler() {
+        // 死信主题分区数可能与原主题不同，由 Kafka 选择分区
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(stringKafkaTemplate,
+                (record, ex) -> new TopicPartition(record.topic() + DeadLetterReplayService.DLT_SUFFIX, -1));
+        return new DefaultErrorHandler(recoverer, new FixedBackOff(retryInterval, retryAttempts));
+    }
+
+    /**
+     * 批内按 key 分组并行处理
+     */
+    @Bean
+    public ParallelBatchProcessor parallelBatchProcessor() {
+        return new ParallelBatchProcessor(batchProcessingExecutor(), timeoutMillis, drainTimeoutMillis);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService batchProcessingExecutor() {
+        AtomicInteger index = new AtomicInteger();
+        return new ThreadPoolExecutor(parallelism, parallelism, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "kafka-batch-" + index.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
 }
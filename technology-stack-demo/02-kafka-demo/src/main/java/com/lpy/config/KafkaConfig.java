@@ -1,7 +1,11 @@
 package com.lpy.config;
 
+import com.lpy.serde.MessageDeserializer;
+import com.lpy.serde.MessageSerializer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,7 +16,6 @@ import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
 import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
-import org.springframework.kafka.support.serializer.JsonSerializer;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -27,20 +30,90 @@ public class KafkaConfig {
     @Value("${spring.kafka.consumer.group-id}")
     private String groupId;
 
+    @Value("${spring.kafka.producer.retries:3}")
+    private int retries;
+
+    @Value("${spring.kafka.producer.acks:all}")
+    private String acks;
+
+    /**
+     * 单个分区批次的最大字节数，批量发送时调大可减少请求数
+     */
+    @Value("${spring.kafka.producer.batch-size:16384}")
+    private int batchSize;
+
+    @Value("${spring.kafka.producer.buffer-memory:33554432}")
+    private long bufferMemory;
+
+    /**
+     * 批次未满时最多等待的毫秒数，用少量延迟换更大的批次
+     */
+    @Value("${spring.kafka.producer.properties.linger.ms:5}")
+    private int lingerMs;
+
+    /**
+     * 压缩算法：none、gzip、snappy、lz4、zstd，按批次压缩，批次越大压缩率越高
+     */
+    @Value("${spring.kafka.producer.compression-type:lz4}")
+    private String compressionType;
+
+    /**
+     * 幂等生产者：broker 按 producerId + 序列号去重，重试不会产生重复或乱序，
+     * 开启时强制 acks=all，max.in.flight 最多为 5
+     */
+    @Value("${spring.kafka.producer.properties.enable.idempotence:true}")
+    private boolean idempotence;
+
+    @Value("${spring.kafka.producer.properties.max.in.flight.requests.per.connection:5}")
+    private int maxInFlight;
+
+    /**
+     * 默认容器工厂的初始并发数，开启 kafka.adaptive 时由 AdaptiveConcurrencyController 在此基础上调整
+     */
+    @Value("${spring.kafka.listener.concurrency:3}")
+    private int listenerConcurrency;
+
+    /**
+     * Message 的编码格式：json、avro，消费端按数据头部自动识别，两种格式可共存
+     */
+    @Value("${kafka.serde.message-format:json}")
+    private String messageFormat;
+
+    @Value("${kafka.serde.schema-location:" + MessageSerializer.DEFAULT_SCHEMA_LOCATION + "}")
+    private String schemaLocation;
+
     /**
      * 生产者工厂配置
      */
     @Bean
     public ProducerFactory<String, Object> producerFactory() {
+        return new DefaultKafkaProducerFactory<>(producerProps());
+    }
+
+    /**
+     * 生产者公共配置，事务生产者在此基础上增加 transactional.id
+     */
+    public Map<String, Object> producerProps() {
         Map<String, Object> props = new HashMap<>();
         props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        props.put(ProducerConfig.RETRIES_CONFIG, 3);
-        props.put(ProducerConfig.BATCH_SIZE_CONFIG, 16384);
-        props.put(ProducerConfig.BUFFER_MEMORY_CONFIG, 33554432);
-        props.put(ProducerConfig.ACKS_CONFIG, "all");
-        return new DefaultKafkaProducerFactory<>(props);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, MessageSerializer.class);
+        props.put(MessageSerializer.FORMAT_CONFIG, messageFormat);
+        props.put(MessageSerializer.SCHEMA_LOCATION_CONFIG, schemaLocation);
+        props.put(ProducerConfig.RETRIES_CONFIG, retries);
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        props.put(ProducerConfig.BUFFER_MEMORY_CONFIG, bufferMemory);
+        props.put(ProducerConfig.ACKS_CONFIG, acks);
+        props.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, idempotence);
+        if (idempotence) {
+            props.put(ProducerConfig.ACKS_CONFIG, "all");
+            props.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, Math.min(maxInFlight, 5));
+        } else {
+            props.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, maxInFlight);
+        }
+        return props;
     }
 
     /**
@@ -51,6 +124,37 @@ public class KafkaConfig {
         return new KafkaTemplate<>(producerFactory());
     }
 
+    /**
+     * 字符串值的Kafka模板，原样转发字符串记录（如发送到死信主题），避免被JsonSerializer加上引号
+     */
+    @Bean
+    public KafkaTemplate<String, String> stringKafkaTemplate() {
+        return new KafkaTemplate<>(stringProducerFactory());
+    }
+
+    @Bean
+    public ProducerFactory<String, String> stringProducerFactory() {
+        Map<String, Object> props = producerProps();
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        return new DefaultKafkaProducerFactory<>(props);
+    }
+
+    /**
+     * 字节数组Kafka模板，按原始字节转发记录（如从死信主题重放），不经过序列化
+     */
+    @Bean
+    public KafkaTemplate<byte[], byte[]> bytesKafkaTemplate() {
+        return new KafkaTemplate<>(bytesProducerFactory());
+    }
+
+    @Bean
+    public ProducerFactory<byte[], byte[]> bytesProducerFactory() {
+        Map<String, Object> props = producerProps();
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class);
+        return new DefaultKafkaProducerFactory<>(props);
+    }
+
     /**
      * 消费者工厂配置
      */
@@ -60,7 +164,8 @@ public class KafkaConfig {
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, MessageDeserializer.class);
+        props.put(MessageSerializer.SCHEMA_LOCATION_CONFIG, schemaLocation);
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
         props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, true);
         props.put(ConsumerConfig.AUTO_COMMIT_INTERVAL_MS_CONFIG, 1000);
@@ -80,11 +185,65 @@ public class KafkaConfig {
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
         // 设置并发级别
-        factory.setConcurrency(3);
+        factory.setConcurrency(listenerConcurrency);
         // 设置确认模式
         factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
         // 设置批量监听
         factory.setBatchListener(false);
         return factory;
     }
+
+    /**
+     * 关闭自动提交的消费者工厂，其余配置与 consumerFactory 相同
+     */
+    @Bean
+    public ConsumerFactory<String, Object> manualAckConsumerFactory() {
+        Map<String, Object> props = new HashMap<>(consumerFactory().getConfigurationProperties());
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        return new DefaultKafkaConsumerFactory<>(props);
+    }
+
+    /**
+     * 手动确认监听器容器工厂：关闭自动提交，监听方法调用 Acknowledgment 后提交位移；
+     * 处理失败时抛出异常交给重试主题，不确认也不会阻塞分区
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> manualAckKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(manualAckConsumerFactory());
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.setConcurrency(3);
+        return factory;
+    }
+
+    /**
+     * 原始字节消费者工厂：值不做反序列化，直接以 byte[] 交给监听器，省去字符串解码和复制
+     */
+    @Bean
+    public ConsumerFactory<String, byte[]> rawConsumerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId + "-raw");
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 500);
+        return new DefaultKafkaConsumerFactory<>(props);
+    }
+
+    /**
+     * 原始字节批量监听器容器工厂
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, byte[]> rawKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, byte[]> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(rawConsumerFactory());
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        factory.setConcurrency(1);
+        return factory;
+    }
 }
@@ -0,0 +1,71 @@
+package com.lpy.config;
+
+import com.lpy.metrics.KafkaMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.AbstractKafkaListenerContainerFactory;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.streams.KafkaStreamsMicrometerListener;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.core.MicrometerProducerListener;
+
+/**
+ * @Title: Kafka 客户端指标
+ *
+ * 所有生产者、消费者工厂和监听容器工厂都在这里统一接入 Micrometer，通过 /actuator/metrics 查看：
+ * 1. 客户端指标：每个生产者/消费者创建时绑定 Kafka 客户端自带的指标，
+ *    其中 kafka.consumer.fetch.manager.records.lag（tag：client.id、topic、partition）即分区积压；
+ * 2. 排队时间：监听容器工厂设置拦截器，记录 kafka.consumer.queue.time；
+ * 3. 处理耗时：spring-kafka 自带的 spring.kafka.listener（tag：name 为监听器 id 加序号），
+ *    百分位在 management.metrics.distribution 中开启；
+ * 4. 发送耗时 kafka.producer.send 由 KafkaProducerService 记录，见 {@link KafkaMetrics}；
+ * 5. 开启 Kafka Streams 时同样绑定 Streams 客户端指标（kafka.stream.*）。
+ */
+@Configuration
+public class KafkaMetricsConfig {
+
+    @Bean
+    public static KafkaMetrics kafkaMetrics(MeterRegistry meterRegistry) {
+        return new KafkaMetrics(meterRegistry);
+    }
+
+    /**
+     * 工厂初始化后、第一个客户端创建前注册指标监听和拦截器，
+     * 事务、重试主题等后续新增的工厂无需各自配置
+     */
+    @Bean
+    public static BeanPostProcessor kafkaMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry,
+                                                              ObjectProvider<KafkaMetrics> metrics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DefaultKafkaConsumerFactory) {
+                    ((DefaultKafkaConsumerFactory<?, ?>) bean).addListener(
+                            new MicrometerConsumerListener<>(meterRegistry.getObject()));
+                } else if (bean instanceof DefaultKafkaProducerFactory) {
+                    ((DefaultKafkaProducerFactory<?, ?>) bean).addListener(
+                            new MicrometerProducerListener<>(meterRegistry.getObject()));
+                } else if (bean instanceof StreamsBuilderFactoryBean) {
+                    ((StreamsBuilderFactoryBean) bean).addListener(
+                            new KafkaStreamsMicrometerListener(meterRegistry.getObject()));
+                } else if (bean instanceof AbstractKafkaListenerContainerFactory) {
+                    customize((AbstractKafkaListenerContainerFactory<?, ?, ?>) bean, metrics.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static <K, V> void customize(AbstractKafkaListenerContainerFactory<?, K, V> factory, KafkaMetrics metrics) {
+        if (Boolean.TRUE.equals(factory.isBatchListener())) {
+            factory.setBatchInterceptor(metrics.<K, V>batchInterceptor());
+        } else {
+            factory.setRecordInterceptor(metrics.<K, V>recordInterceptor());
+        }
+    }
+}
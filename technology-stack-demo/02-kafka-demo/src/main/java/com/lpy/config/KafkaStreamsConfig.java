@@ -0,0 +1,85 @@
+package com.lpy.config;
+
+import com.lpy.entity.SenderStats;
+import com.lpy.serde.MessageSerde;
+import com.lpy.serde.MessageSerializer;
+import com.lpy.streams.SenderStatsTopology;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.kstream.KTable;
+import org.apache.kafka.streams.kstream.Windowed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafkaStreams;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Kafka Streams 配置，kafka.streams.enabled=true 时启用
+ *
+ * 应用 id、状态目录等通用配置使用 spring.kafka.streams.*，由 Spring Boot 创建 StreamsBuilderFactoryBean；
+ * 这里只注册拓扑，窗口统计结果通过 {@link com.lpy.service.SenderStatsQueryService} 交互式查询。
+ */
+@Configuration
+@EnableKafkaStreams
+@ConditionalOnProperty(prefix = "kafka.streams", name = "enabled", havingValue = "true")
+public class KafkaStreamsConfig {
+
+    @Value("${kafka.streams.source-topic:object-topic}")
+    private String sourceTopic;
+
+    /**
+     * 滚动窗口大小(ms)
+     */
+    @Value("${kafka.streams.window-size:60000}")
+    private long windowSize;
+
+    /**
+     * 窗口关闭后仍接受迟到记录的时间
+     */
+    @Value("${kafka.streams.grace:10000}")
+    private long grace;
+
+    /**
+     * 窗口在本地存储和 changelog 中的保留时间，决定最远可以查询多久以前的窗口
+     */
+    @Value("${kafka.streams.retention:3600000}")
+    private long retention;
+
+    @Value("${kafka.serde.message-format:json}")
+    private String messageFormat;
+
+    @Value("${kafka.serde.schema-location:" + MessageSerializer.DEFAULT_SCHEMA_LOCATION + "}")
+    private String schemaLocation;
+
+    /**
+     * Streams 要求源主题在启动前存在，不会像监听器那样触发自动创建；分区数、副本数使用 broker 默认值
+     */
+    @Bean
+    public NewTopic senderStatsSourceTopic() {
+        return TopicBuilder.name(sourceTopic).build();
+    }
+
+    @Bean
+    public SenderStatsTopology senderStatsTopology() {
+        MessageSerde messageSerde = new MessageSerde();
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(MessageSerializer.FORMAT_CONFIG, messageFormat);
+        configs.put(MessageSerializer.SCHEMA_LOCATION_CONFIG, schemaLocation);
+        configs.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
+        messageSerde.configure(configs, false);
+        return new SenderStatsTopology(sourceTopic, messageSerde,
+                Duration.ofMillis(windowSize), Duration.ofMillis(grace), Duration.ofMillis(retention));
+    }
+
+    @Bean
+    public KTable<Windowed<String>, SenderStats> senderStatsTable(StreamsBuilder streamsBuilder) {
+        return senderStatsTopology().build(streamsBuilder);
+    }
+}
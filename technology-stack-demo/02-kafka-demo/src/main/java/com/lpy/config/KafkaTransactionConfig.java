@@ -0,0 +1,98 @@
+package com.lpy.config;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.transaction.KafkaTransactionManager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 事务生产者配置，设置 spring.kafka.producer.transaction-id-prefix 后启用
+ *
+ * 普通的 kafkaTemplate 不受影响；事务发送使用 transactionalKafkaTemplate，
+ * transactionalKafkaListenerContainerFactory 的监听器在容器开启的事务中运行，
+ * 监听器内的发送和消费位移（sendOffsetsToTransaction）一起提交，实现读-处理-写的 exactly-once。
+ * 事务 ID 前缀在集群内每个实例必须唯一。
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "spring.kafka.producer", name = "transaction-id-prefix")
+public class KafkaTransactionConfig {
+
+    @Autowired
+    private KafkaConfig kafkaConfig;
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Value("${spring.kafka.consumer.group-id}")
+    private String groupId;
+
+    @Value("${spring.kafka.producer.transaction-id-prefix}")
+    private String transactionIdPrefix;
+
+    /**
+     * 事务生产者工厂，事务要求幂等，强制开启
+     */
+    @Bean
+    public ProducerFactory<String, Object> transactionalProducerFactory() {
+        Map<String, Object> props = kafkaConfig.producerProps();
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        DefaultKafkaProducerFactory<String, Object> factory = new DefaultKafkaProducerFactory<>(props);
+        factory.setTransactionIdPrefix(transactionIdPrefix);
+        return factory;
+    }
+
+    @Bean
+    public KafkaTemplate<String, Object> transactionalKafkaTemplate() {
+        return new KafkaTemplate<>(transactionalProducerFactory());
+    }
+
+    @Bean
+    public KafkaTransactionManager<String, Object> kafkaTransactionManager() {
+        return new KafkaTransactionManager<>(transactionalProducerFactory());
+    }
+
+    /**
+     * 只读取已提交事务消息的消费者工厂
+     */
+    @Bean
+    public ConsumerFactory<String, String> transactionalConsumerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId + "-tx");
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        // 位移随事务提交，不能自动提交
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+        return new DefaultKafkaConsumerFactory<>(props);
+    }
+
+    /**
+     * 事务监听器容器工厂：每批拉取的记录在一个事务中处理，失败回滚后重新消费
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> transactionalKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, String> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(transactionalConsumerFactory());
+        factory.getContainerProperties().setTransactionManager(kafkaTransactionManager());
+        factory.setConcurrency(3);
+        return factory;
+    }
+}
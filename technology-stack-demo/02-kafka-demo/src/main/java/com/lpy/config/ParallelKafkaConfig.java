@@ -0,0 +1,102 @@
+package com.lpy.config;
+
+import com.lpy.consumer.KeyOrderedExecutor;
+import com.lpy.consumer.ListenerBackpressure;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 分区内并行消费配置
+ *
+ * 监听器把记录交给 {@link KeyOrderedExecutor} 后立即返回，工作线程处理完再调用 Acknowledgment。
+ * 容器开启 asyncAcks：确认可以乱序到达，容器只提交到连续已确认的最大位移，
+ * 上一批记录全部确认前暂停拉取，因此每个消费者的在途记录数不超过 max.poll.records，也不会因处理慢触发 rebalance。
+ * 工作队列由容器的所有消费者共享，并发数被调高后由 {@link ListenerBackpressure} 按水位暂停/恢复，限制总在途记录数。
+ */
+@Configuration
+public class ParallelKafkaConfig {
+
+    public static final String LISTENER_ID = "parallel-listener";
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Value("${spring.kafka.consumer.group-id}")
+    private String groupId;
+
+    /**
+     * 工作线程（通道）数
+     */
+    @Value("${kafka.parallel.workers:16}")
+    private int workers;
+
+    /**
+     * 是否使用虚拟线程，需要运行在 JDK 21+
+     */
+    @Value("${kafka.parallel.virtual-threads:false}")
+    private boolean virtualThreads;
+
+    @Value("${kafka.parallel.max-poll-records:500}")
+    private int maxPollRecords;
+
+    /**
+     * 工作队列高水位：在途记录数达到后暂停拉取，降到低水位后恢复
+     */
+    @Value("${kafka.parallel.queue-high-watermark:1000}")
+    private int highWatermark;
+
+    @Value("${kafka.parallel.queue-low-watermark:250}")
+    private int lowWatermark;
+
+    @Bean(destroyMethod = "shutdown")
+    public KeyOrderedExecutor parallelRecordExecutor() {
+        return new KeyOrderedExecutor("kafka-parallel", workers, virtualThreads);
+    }
+
+    /**
+     * parallel-topic 监听器的背压，监听器 id 为 {@link #LISTENER_ID}
+     */
+    @Bean
+    public ListenerBackpressure parallelBackpressure(KafkaListenerEndpointRegistry registry) {
+        return new ListenerBackpressure(registry, LISTENER_ID, highWatermark, lowWatermark);
+    }
+
+    @Bean
+    public ConsumerFactory<String, String> parallelConsumerFactory() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId + "-parallel");
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        return new DefaultKafkaConsumerFactory<>(props);
+    }
+
+    /**
+     * 并行消费监听器容器工厂，监听方法需要接收 Acknowledgment 并在处理完成后调用
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> parallelKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, String> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(parallelConsumerFactory());
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        // 允许在工作线程中乱序确认，容器按连续位移提交
+        factory.getContainerProperties().setAsyncAcks(true);
+        factory.setConcurrency(1);
+        return factory;
+    }
+}
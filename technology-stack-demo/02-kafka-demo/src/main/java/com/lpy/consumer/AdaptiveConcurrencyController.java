@@ -0,0 +1,195 @@
+package com.lpy.consumer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Title: 监听器并发数自适应调整
+ *
+ * 定时读取容器内各消费者的客户端指标：
+ * records-lag-max（积压）和 time-between-poll-avg（两次 poll 的平均间隔，即每批的处理耗时）。
+ * 积压超过 scale-up-lag 时并发数加一，积压低于 scale-down-lag 且 poll 间隔远低于 max.poll.interval.ms 时减一，
+ * 范围为 [min-concurrency, min(max-concurrency, 分区数)]，每次调整后冷却一段时间。
+ * poll 间隔接近 max.poll.interval.ms 时只告警，这种情况需要减小 max.poll.records 或改为异步处理并用
+ * {@link ListenerBackpressure} 背压，增加消费者并不能缩短单批的处理时间。
+ *
+ * 调整并发数需要重启容器（会触发一次 rebalance），容器在 stop 回调中修改并发数后重新启动，
+ * 因此默认关闭，以 kafka.adaptive.enabled=true 开启；未列入 listener-ids 的监听器保持容器工厂配置的并发数。
+ */
+@Component
+@Slf4j
+public class AdaptiveConcurrencyController {
+
+    private static final String FETCH_METRICS_GROUP = "consumer-fetch-manager-metrics";
+
+    private static final String CONSUMER_METRICS_GROUP = "consumer-metrics";
+
+    /**
+     * Kafka 消费者 max.poll.interval.ms 的默认值
+     */
+    private static final long DEFAULT_MAX_POLL_INTERVAL_MILLIS = 300000;
+
+    @Autowired
+    private KafkaListenerEndpointRegistry registry;
+
+    @Value("${kafka.adaptive.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * 参与调整的监听器 id
+     */
+    @Value("${kafka.adaptive.listener-ids:parallel-listener,batch-listener,test-listener,object-listener}")
+    private List<String> listenerIds;
+
+    @Value("${kafka.adaptive.interval:10000}")
+    private long intervalMillis;
+
+    @Value("${kafka.adaptive.cooldown:60000}")
+    private long cooldownMillis;
+
+    @Value("${kafka.adaptive.min-concurrency:1}")
+    private int minConcurrency;
+
+    @Value("${kafka.adaptive.max-concurrency:6}")
+    private int maxConcurrency;
+
+    @Value("${kafka.adaptive.scale-up-lag:1000}")
+    private long scaleUpLag;
+
+    @Value("${kafka.adaptive.scale-down-lag:10}")
+    private long scaleDownLag;
+
+    private final Map<String, Long> lastScaled = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "kafka-adaptive-concurrency");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::adjustAll, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        log.info("监听器并发数自适应调整已启动: listeners={}, range=[{}, {}]", listenerIds, minConcurrency, maxConcurrency);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void adjustAll() {
+        for (String listenerId : listenerIds) {
+            try {
+                MessageListenerContainer container = registry.getListenerContainer(listenerId);
+                if (container instanceof ConcurrentMessageListenerContainer && container.isRunning()) {
+                    adjust(listenerId, (ConcurrentMessageListenerContainer<?, ?>) container);
+                }
+            } catch (Exception e) {
+                log.error("调整监听器并发数失败: listener={}, error={}", listenerId, e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 根据积压和 poll 间隔计算目标并发数，与当前不同时重启容器
+     */
+    void adjust(String listenerId, ConcurrentMessageListenerContainer<?, ?> container) {
+        Map<String, Map<MetricName, ? extends Metric>> metrics = container.metrics();
+        double lag = maxMetric(metrics, FETCH_METRICS_GROUP, "records-lag-max");
+        double pollInterval = maxMetric(metrics, CONSUMER_METRICS_GROUP, "time-between-poll-avg");
+        int current = container.getConcurrency();
+        int partitions = container.getAssignedPartitions() == null ? 0 : container.getAssignedPartitions().size();
+        long maxPollIntervalMillis = maxPollIntervalMillis(container);
+
+        if (pollInterval > maxPollIntervalMillis * 0.5) {
+            log.warn("poll间隔接近max.poll.interval.ms: listener={}, pollIntervalAvg={}ms, max={}ms",
+                    listenerId, (long) pollInterval, maxPollIntervalMillis);
+        }
+
+        int target = current;
+        if (lag >= scaleUpLag) {
+            target = current + 1;
+        } else if (lag <= scaleDownLag && pollInterval < maxPollIntervalMillis * 0.2) {
+            target = current - 1;
+        }
+        // 消费者数超过分区数时多出的消费者分不到分区
+        int upper = Math.max(minConcurrency, Math.min(maxConcurrency, partitions > 0 ? partitions : maxConcurrency));
+        target = Math.max(minConcurrency, Math.min(upper, target));
+
+        long now = System.currentTimeMillis();
+        if (target == current || now - lastScaled.getOrDefault(listenerId, 0L) < cooldownMillis) {
+            return;
+        }
+        lastScaled.put(listenerId, now);
+        log.info("调整监听器并发数: listener={}, {} -> {}, lag={}, pollIntervalAvg={}ms, partitions={}",
+                listenerId, current, target, (long) lag, (long) pollInterval, partitions);
+        int concurrency = target;
+        container.stop(() -> {
+            container.setConcurrency(concurrency);
+            container.start();
+        });
+    }
+
+    /**
+     * 容器实际使用的 max.poll.interval.ms：容器属性中的覆盖值优先，其次是消费者工厂的配置，都没有时为 Kafka 默认值。
+     * 各消费者工厂的配置在 KafkaConfig 等配置类中手工构建，不经过 spring.kafka.consumer.properties；
+     * 当前版本的容器没有公开消费者工厂，通过受保护字段 consumerFactory 读取
+     */
+    private static long maxPollIntervalMillis(ConcurrentMessageListenerContainer<?, ?> container) {
+        Object value = container.getContainerProperties().getKafkaConsumerProperties()
+                .get(ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG);
+        if (value == null) {
+            Object factory = new DirectFieldAccessor(container).getPropertyValue("consumerFactory");
+            if (factory instanceof ConsumerFactory) {
+                value = ((ConsumerFactory<?, ?>) factory).getConfigurationProperties()
+                        .get(ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG);
+            }
+        }
+        return value == null ? DEFAULT_MAX_POLL_INTERVAL_MILLIS : Long.parseLong(value.toString());
+    }
+
+    /**
+     * 取各消费者客户端级别指标（只有 client-id 标签）中的最大值，未采样时为 NaN，按 0 处理
+     */
+    private static double maxMetric(Map<String, Map<MetricName, ? extends Metric>> metrics, String group, String name) {
+        double max = 0;
+        for (Map<MetricName, ? extends Metric> clientMetrics : metrics.values()) {
+            for (Map.Entry<MetricName, ? extends Metric> entry : clientMetrics.entrySet()) {
+                MetricName metricName = entry.getKey();
+                if (metricName.group().equals(group) && metricName.name().equals(name) && metricName.tags().size() == 1) {
+                    Object value = entry.getValue().metricValue();
+                    if (value instanceof Double && !((Double) value).isNaN()) {
+                        max = Math.max(max, (Double) value);
+                    }
+                }
+            }
+        }
+        return max;
+    }
+}
@@ -0,0 +1,94 @@
+package com.lpy.consumer;
+
+/**
+ * 一批记录的并行处理结果，下标与批次中的记录一一对应
+ */
+public class BatchProcessResult {
+
+    public enum Outcome {
+        /**
+         * 处理成功
+         */
+        SUCCEEDED,
+        /**
+         * 之前的投递中已处理成功，本次跳过
+         */
+        SKIPPED,
+        /**
+         * 处理失败
+         */
+        FAILED,
+        /**
+         * 同 key 的前一条记录失败或处理超时，未处理
+         */
+        NOT_ATTEMPTED
+    }
+
+    private final Outcome[] outcomes;
+
+    private final Exception[] errors;
+
+    private final int groups;
+
+    private final long elapsedMillis;
+
+    BatchProcessResult(Outcome[] outcomes, Exception[] errors, int groups, long elapsedMillis) {
+        // 复制一份，超时后仍在运行的分组不会再改动结果
+        this.outcomes = outcomes.clone();
+        this.errors = errors.clone();
+        for (int i = 0; i < this.outcomes.length; i++) {
+            if (this.outcomes[i] == null) {
+                this.outcomes[i] = Outcome.NOT_ATTEMPTED;
+            }
+        }
+        this.groups = groups;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public Outcome getOutcome(int index) {
+        return outcomes[index];
+    }
+
+    public Exception getError(int index) {
+        return errors[index];
+    }
+
+    public int getTotal() {
+        return outcomes.length;
+    }
+
+    public int getGroups() {
+        return groups;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public int count(Outcome outcome) {
+        int count = 0;
+        for (Outcome o : outcomes) {
+            if (o == outcome) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 第一条失败或未处理的记录下标，全部完成时返回 -1。
+     * 之前的记录都已完成，可以提交；从这里开始的记录需要重新投递
+     */
+    public int getFirstIncompleteIndex() {
+        for (int i = 0; i < outcomes.length; i++) {
+            if (outcomes[i] == Outcome.FAILED || outcomes[i] == Outcome.NOT_ATTEMPTED) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean isAllCompleted() {
+        return getFirstIncompleteIndex() < 0;
+    }
+}
@@ -0,0 +1,139 @@
+package com.lpy.consumer;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @Title: 按 key 保序的并行执行器
+ *
+ * 同一个 key 的任务按提交顺序串行执行，不同 key 的任务并行执行，
+ * 单个分区内的记录因此可以由多个线程同时处理，吞吐随工作线程数而不是分区数增长。
+ *
+ * 两种模式：
+ * 1. 固定通道（默认）：workers 个单线程通道，key 按哈希分配到通道，同通道内顺序执行；
+ * 2. 虚拟线程：运行在 JDK 21+ 时可开启，每个 key 维护一条任务链，链之间并发不受线程数限制，
+ *    低版本 JDK 上自动退回固定通道模式。
+ * 没有 key 的任务没有顺序要求，轮流分配到各通道。
+ */
+@Slf4j
+public class KeyOrderedExecutor {
+
+    private final ThreadPoolExecutor[] lanes;
+
+    private final ExecutorService virtualExecutor;
+
+    private final Map<Object, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+
+    private final AtomicInteger roundRobin = new AtomicInteger();
+
+    private final AtomicInteger pending = new AtomicInteger();
+
+    public KeyOrderedExecutor(String name, int workers, boolean virtualThreads) {
+        this.virtualExecutor = virtualThreads ? newVirtualThreadExecutor() : null;
+        if (virtualExecutor != null) {
+            this.lanes = null;
+            log.info("按key保序执行器[{}]使用虚拟线程", name);
+            return;
+        }
+        this.lanes = new ThreadPoolExecutor[workers];
+        for (int i = 0; i < workers; i++) {
+            String threadName = name + "-" + i;
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+                Thread thread = new Thread(r, threadName);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        log.info("按key保序执行器[{}]使用固定通道: workers={}", name, workers);
+    }
+
+    /**
+     * 提交任务，task 自行处理异常，抛出的异常只记录日志，不会阻断同 key 的后续任务
+     *
+     * @param key 顺序键，为 null 时不保证顺序
+     * @param task
+     */
+    public void execute(Object key, Runnable task) {
+        Runnable safeTask = () -> {
+            try {
+                task.run();
+            } catch (Throwable e) {
+                log.error("按key保序任务执行失败: key={}, error={}", key, e.getMessage(), e);
+            } finally {
+                pending.decrementAndGet();
+            }
+        };
+        pending.incrementAndGet();
+        if (virtualExecutor != null) {
+            executeVirtual(key, safeTask);
+            return;
+        }
+        int index = key == null
+                ? Math.floorMod(roundRobin.getAndIncrement(), lanes.length)
+                : Math.floorMod(key.hashCode(), lanes.length);
+        lanes[index].execute(safeTask);
+    }
+
+    /**
+     * 排队和执行中的任务数
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * 停止接收新任务，最多等待 30 秒让已提交的任务执行完
+     */
+    public void shutdown() throws InterruptedException {
+        shutdown(30, TimeUnit.SECONDS);
+    }
+
+    public void shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        if (virtualExecutor != null) {
+            virtualExecutor.shutdown();
+            virtualExecutor.awaitTermination(timeout, unit);
+            return;
+        }
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void executeVirtual(Object key, Runnable task) {
+        if (key == null) {
+            virtualExecutor.execute(task);
+            return;
+        }
+        CompletableFuture<Void> next = tails.compute(key, (k, tail) -> tail == null
+                ? CompletableFuture.runAsync(task, virtualExecutor)
+                : tail.thenRunAsync(task, virtualExecutor));
+        // 链尾执行完且没有新任务接上时移除，避免 key 无限增长
+        next.whenComplete((r, e) -> tails.remove(key, next));
+    }
+
+    /**
+     * 通过反射调用 Executors.newVirtualThreadPerTaskExecutor()，源码仍兼容 Java 8
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method method = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.warn("当前JDK不支持虚拟线程，使用固定通道模式");
+            return null;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.lpy.consumer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @Title: 监听器背压
+ *
+ * 监听器把记录交给内部工作队列后立即返回，这里统计在途记录数：
+ * 达到高水位时暂停容器已分配的全部分区，降到低水位时恢复。暂停期间拉取线程照常 poll（返回空），
+ * 心跳和 poll 间隔不受下游处理速度影响，不会因超过 max.poll.interval.ms 触发 rebalance；
+ * 暂停状态在 rebalance 后由容器继续保持。
+ *
+ * 暂停在下一次 poll 前生效，在途记录数最多为高水位加一次 poll 的记录数。
+ */
+@Slf4j
+public class ListenerBackpressure {
+
+    private final KafkaListenerEndpointRegistry registry;
+
+    private final String listenerId;
+
+    private final int highWatermark;
+
+    private final int lowWatermark;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicBoolean paused = new AtomicBoolean();
+
+    public ListenerBackpressure(KafkaListenerEndpointRegistry registry, String listenerId, int highWatermark, int lowWatermark) {
+        if (lowWatermark >= highWatermark) {
+            throw new IllegalArgumentException("低水位必须小于高水位: low=" + lowWatermark + ", high=" + highWatermark);
+        }
+        this.registry = registry;
+        this.listenerId = listenerId;
+        this.highWatermark = highWatermark;
+        this.lowWatermark = lowWatermark;
+    }
+
+    /**
+     * 一条记录进入工作队列，在监听线程中调用
+     */
+    public void acquire() {
+        if (inFlight.incrementAndGet() >= highWatermark && paused.compareAndSet(false, true)) {
+            MessageListenerContainer container = registry.getListenerContainer(listenerId);
+            if (container != null) {
+                container.pause();
+                log.warn("工作队列达到高水位，暂停拉取: listener={}, inFlight={}", listenerId, inFlight.get());
+            }
+        }
+    }
+
+    /**
+     * 一条记录处理完成，在工作线程中调用
+     */
+    public void release() {
+        if (inFlight.decrementAndGet() <= lowWatermark && paused.compareAndSet(true, false)) {
+            MessageListenerContainer container = registry.getListenerContainer(listenerId);
+            if (container != null) {
+                container.resume();
+                log.info("工作队列降到低水位，恢复拉取: listener={}, inFlight={}", listenerId, inFlight.get());
+            }
+        }
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public boolean isPaused() {
+        return paused.get();
+    }
+}
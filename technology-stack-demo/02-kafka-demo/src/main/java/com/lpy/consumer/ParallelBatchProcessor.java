@@ -0,0 +1,177 @@
+package com.lpy.consumer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * @Title: 批量记录并行处理器
+ *
+ * 一批记录按 key 分组，组与组并行处理，组内按位移顺序处理；某条记录失败后同组剩余记录不再处理，
+ * 保证同 key 的顺序。处理结果汇总为 {@link BatchProcessResult}，由监听器决定整批提交还是
+ * 抛出 BatchListenerFailedException 只重试失败记录。
+ *
+ * 失败记录之后已成功的记录会随重试重新投递，处理器按分区记住这些位移，重新投递时直接跳过，
+ * 一条坏记录不会导致整批重复处理。记住的位移在该分区下一批起始位移之前的部分会被清理。
+ *
+ * 超时后各分组不再开始新的记录，最多再等待 drainTimeoutMillis 让正在执行的记录处理完，一批的处理时间
+ * 不超过 timeoutMillis + drainTimeoutMillis。仍未结束的记录按未处理返回，随失败记录重新投递，
+ * 此时旧任务可能仍在执行，会与重新投递的记录并发处理同一个 key，handler 需要幂等。
+ */
+@Slf4j
+public class ParallelBatchProcessor {
+
+    private final ExecutorService executor;
+
+    private final long timeoutMillis;
+
+    private final long drainTimeoutMillis;
+
+    /**
+     * 已处理成功但位移尚未提交的记录
+     */
+    private final Map<TopicPartition, ConcurrentSkipListSet<Long>> completed = new ConcurrentHashMap<>();
+
+    public ParallelBatchProcessor(ExecutorService executor, long timeoutMillis, long drainTimeoutMillis) {
+        this.executor = executor;
+        this.timeoutMillis = timeoutMillis;
+        this.drainTimeoutMillis = drainTimeoutMillis;
+    }
+
+    /**
+     * 并行处理一批记录，等待所有分组处理完成后返回；超过 timeoutMillis 时取消尚未开始的记录，
+     * 再最多等待 drainTimeoutMillis，仍在处理的记录按未处理返回
+     *
+     * @param records 批量记录
+     * @param handler 单条记录处理逻辑，抛出异常视为失败
+     * @return 每条记录的处理结果
+     */
+    public <K, V> BatchProcessResult process(List<ConsumerRecord<K, V>> records, Consumer<ConsumerRecord<K, V>> handler) {
+        long start = System.nanoTime();
+        // 放弃等待后仍在运行的分组会继续写入，用原子数组保证读到的结果可见且完整
+        AtomicReferenceArray<BatchProcessResult.Outcome> outcomes = new AtomicReferenceArray<>(records.size());
+        AtomicReferenceArray<Exception> errors = new AtomicReferenceArray<>(records.size());
+
+        trimCompleted(records);
+        Map<Object, List<Integer>> groups = groupByKey(records);
+
+        AtomicBoolean cancelled = new AtomicBoolean();
+        List<CompletableFuture<Void>> futures = new ArrayList<>(groups.size());
+        for (List<Integer> group : groups.values()) {
+            futures.add(CompletableFuture.runAsync(() -> processGroup(records, group, handler, outcomes, errors, cancelled), executor));
+        }
+
+        CompletableFuture<Void> all = CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+        try {
+            all.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelAndWait(all, cancelled);
+        } catch (TimeoutException e) {
+            log.error("批量记录并行处理超时: count={}, timeoutMillis={}", records.size(), timeoutMillis);
+            cancelAndWait(all, cancelled);
+        } catch (Exception e) {
+            log.error("批量记录并行处理异常: count={}, error={}", records.size(), e.getMessage());
+            cancelAndWait(all, cancelled);
+        }
+
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        // 取消后未开始和仍在处理的记录没有结果，按未处理对待，随失败记录一起重新投递
+        BatchProcessResult.Outcome[] outcomeSnapshot = new BatchProcessResult.Outcome[records.size()];
+        Exception[] errorSnapshot = new Exception[records.size()];
+        for (int i = 0; i < records.size(); i++) {
+            outcomeSnapshot[i] = outcomes.get(i);
+            errorSnapshot[i] = errors.get(i);
+        }
+        return new BatchProcessResult(outcomeSnapshot, errorSnapshot, groups.size(), elapsed);
+    }
+
+    private <K, V> void processGroup(List<ConsumerRecord<K, V>> records, List<Integer> group,
+                                     Consumer<ConsumerRecord<K, V>> handler,
+                                     AtomicReferenceArray<BatchProcessResult.Outcome> outcomes,
+                                     AtomicReferenceArray<Exception> errors, AtomicBoolean cancelled) {
+        boolean failed = false;
+        for (int index : group) {
+            ConsumerRecord<K, V> record = records.get(index);
+            if (failed || cancelled.get()) {
+                outcomes.set(index, BatchProcessResult.Outcome.NOT_ATTEMPTED);
+                continue;
+            }
+            TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+            ConcurrentSkipListSet<Long> done = completed.get(partition);
+            if (done != null && done.contains(record.offset())) {
+                outcomes.set(index, BatchProcessResult.Outcome.SKIPPED);
+                continue;
+            }
+            try {
+                handler.accept(record);
+                completed.computeIfAbsent(partition, p -> new ConcurrentSkipListSet<>()).add(record.offset());
+                outcomes.set(index, BatchProcessResult.Outcome.SUCCEEDED);
+            } catch (Exception e) {
+                errors.set(index, e);
+                outcomes.set(index, BatchProcessResult.Outcome.FAILED);
+                failed = true;
+            }
+        }
+    }
+
+    /**
+     * 通知各分组停止开始新的记录，并最多等待 drainTimeoutMillis 让正在处理的记录结束
+     */
+    private void cancelAndWait(CompletableFuture<Void> all, AtomicBoolean cancelled) {
+        cancelled.set(true);
+        try {
+            all.get(drainTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (TimeoutException e) {
+            log.error("等待正在处理的记录结束超时，未完成的记录将重新投递: drainTimeoutMillis={}", drainTimeoutMillis);
+        } catch (Exception e) {
+            // 分组内部已捕获处理异常，这里只会是线程池拒绝等异常
+            log.error("等待批量记录处理结束异常: error={}", e.getMessage());
+        }
+    }
+
+    /**
+     * 按 key 分组，组内保持记录在批次中的顺序；没有 key 的记录各自成组
+     */
+    private <K, V> Map<Object, List<Integer>> groupByKey(List<ConsumerRecord<K, V>> records) {
+        Map<Object, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<K, V> record = records.get(i);
+            Object key = record.key() != null ? record.key() : new Object();
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+        }
+        return groups;
+    }
+
+    /**
+     * 每个分区本批的起始位移之前的记录都已提交，不会再投递，清理掉
+     */
+    private <K, V> void trimCompleted(List<ConsumerRecord<K, V>> records) {
+        Map<TopicPartition, Long> firstOffsets = new LinkedHashMap<>();
+        for (ConsumerRecord<K, V> record : records) {
+            firstOffsets.merge(new TopicPartition(record.topic(), record.partition()), record.offset(), Math::min);
+        }
+        for (Map.Entry<TopicPartition, Long> entry : firstOffsets.entrySet()) {
+            ConcurrentSkipListSet<Long> done = completed.get(entry.getKey());
+            if (done != null) {
+                done.headSet(entry.getValue()).clear();
+            }
+        }
+    }
+}
@@ -1,17 +1,26 @@
 package com.lpy.controller;
 
 
+import com.lpy.entity.BatchSendResult;
 import com.lpy.entity.Message;
+import com.lpy.entity.SenderStats;
+import com.lpy.service.DeadLetterReplayService;
 import com.lpy.service.KafkaProducerService;
+import com.lpy.service.KafkaTransactionalService;
+import com.lpy.service.SenderStatsQueryService;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.streams.errors.InvalidStateStoreException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/kafka")
@@ -21,6 +30,15 @@ public class KafkaController {
     @Autowired
     private KafkaProducerService producerService;
 
+    @Autowired(required = false)
+    private KafkaTransactionalService transactionalService;
+
+    @Autowired
+    private DeadLetterReplayService deadLetterReplayService;
+
+    @Autowired(required = false)
+    private SenderStatsQueryService senderStatsQueryService;
+
     /**
      * 发送简单消息
      */
@@ -124,13 +142,16 @@ public class KafkaController {
             @RequestBody List<String> messages) {
 
         try {
-            producerService.sendBatchMessages(topic, messages);
+            BatchSendResult result = producerService.sendBatchMessages(topic, messages).get(30, TimeUnit.SECONDS);
 
             Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "批量消息发送成功");
+            response.put("success", result.isAllSucceeded());
+            response.put("message", result.isAllSucceeded() ? "批量消息发送成功" : "批量消息部分发送失败");
             response.put("topic", topic);
             response.put("count", messages.size());
+            response.put("succeeded", result.getSucceeded());
+            response.put("failures", result.getFailures());
+            response.put("elapsedMillis", result.getElapsedMillis());
 
             return ResponseEntity.ok(response);
 
@@ -145,6 +166,108 @@ public class KafkaController {
         }
     }
 
+    /**
+     * 在一个事务中批量发送消息，需要配置 spring.kafka.producer.transaction-id-prefix
+     */
+    @PostMapping("/send-transactional")
+    public ResponseEntity<Map<String, Object>> sendTransactionalMessages(
+            @RequestParam String topic,
+            @RequestBody List<String> messages) {
+
+        Map<String, Object> response = new HashMap<>();
+        if (transactionalService == null) {
+            response.put("success", false);
+            response.put("message", "未启用事务生产者");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        try {
+            int count = transactionalService.sendInTransaction(topic, messages);
+
+            response.put("success", true);
+            response.put("message", "事务消息发送成功");
+            response.put("topic", topic);
+            response.put("count", count);
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            log.error("事务消息发送失败: {}", e.getMessage());
+
+            response.put("success", false);
+            response.put("message", "事务消息发送失败，已回滚: " + e.getMessage());
+
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+
+    /**
+     * 将死信主题中的记录重放回原主题（或指定主题）
+     */
+    @PostMapping("/dlt/replay")
+    public ResponseEntity<Map<String, Object>> replayDeadLetters(
+            @RequestParam String topic,
+            @RequestParam(required = false) String target,
+            @RequestParam(defaultValue = "100") int max) {
+
+        Map<String, Object> response = new HashMap<>();
+        try {
+            int count = deadLetterReplayService.replay(topic, target, max);
+
+            response.put("success", true);
+            response.put("message", "死信重放完成");
+            response.put("topic", topic);
+            response.put("count", count);
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            log.error("死信重放失败: {}", e.getMessage());
+
+            response.put("success", false);
+            response.put("message", "死信重放失败: " + e.getMessage());
+
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+
+    /**
+     * 查询发送者最近一段时间的窗口统计，不指定 sender 时返回所有发送者，需要开启 kafka.streams.enabled
+     */
+    @GetMapping("/streams/sender-stats")
+    public ResponseEntity<Map<String, Object>> getSenderStats(
+            @RequestParam(required = false) String sender,
+            @RequestParam(defaultValue = "60") long minutes) {
+
+        Map<String, Object> response = new HashMap<>();
+        if (senderStatsQueryService == null) {
+            response.put("success", false);
+            response.put("message", "未启用 Kafka Streams");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        try {
+            Instant to = Instant.now();
+            Instant from = to.minus(Duration.ofMinutes(minutes));
+            List<SenderStats> stats = sender == null
+                    ? senderStatsQueryService.queryAll(from, to)
+                    : senderStatsQueryService.query(sender, from, to);
+
+            response.put("success", true);
+            response.put("sender", sender);
+            response.put("windows", stats);
+
+            return ResponseEntity.ok(response);
+
+        } catch (InvalidStateStoreException e) {
+            // 启动恢复或 rebalance 期间状态存储不可查询
+            response.put("success", false);
+            response.put("message", "状态存储暂不可用，请稍后重试: " + e.getMessage());
+
+            return ResponseEntity.status(503).body(response);
+        }
+    }
+
     /**
      * 快速测试接口
      */
@@ -189,7 +312,8 @@ public class KafkaController {
         status.put("description", "Kafka集成服务运行正常");
         status.put("supportedTopics", Arrays.asList(
                 "test-topic", "test-detail-topic", "object-topic",
-                "manual-ack-topic", "batch-topic", "partition-topic", "error-topic"
+                "manual-ack-topic", "batch-topic", "partition-topic", "error-topic",
+                "parallel-topic", "raw-topic"
         ));
 
         return ResponseEntity.ok(status);
@@ -0,0 +1,45 @@
+package com.lpy.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 批量发送结果，failures 中记录每条失败消息在批次中的下标和原因；
+ * 写入本地溢出队列、稍后重放的消息计入 succeeded，其中的条数另记为 spilled
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchSendResult {
+
+    private String topic;
+
+    private int total;
+
+    private int succeeded;
+
+    private int spilled;
+
+    private List<Failure> failures;
+
+    private long elapsedMillis;
+
+    public boolean isAllSucceeded() {
+        return succeeded == total;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Failure {
+
+        private int index;
+
+        private String key;
+
+        private String error;
+    }
+}
@@ -0,0 +1,39 @@
+package com.lpy.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 发送者在一个时间窗口内的消息统计，windowStart、windowEnd 在查询时填充，不写入状态存储
+ */
+@Data
+@NoArgsConstructor
+public class SenderStats {
+
+    private String sender;
+
+    private long windowStart;
+
+    private long windowEnd;
+
+    private long count;
+
+    private long totalContentLength;
+
+    private int maxContentLength;
+
+    private String lastMessageId;
+
+    /**
+     * 累加一条消息，返回自身供 aggregate 使用
+     */
+    public SenderStats add(Message message) {
+        int length = message.getContent() == null ? 0 : message.getContent().length();
+        sender = message.getSender();
+        count++;
+        totalContentLength += length;
+        maxContentLength = Math.max(maxContentLength, length);
+        lastMessageId = message.getId();
+        return this;
+    }
+}
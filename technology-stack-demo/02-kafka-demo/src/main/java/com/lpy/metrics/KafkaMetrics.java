@@ -0,0 +1,112 @@
+package com.lpy.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.springframework.kafka.listener.BatchInterceptor;
+import org.springframework.kafka.listener.ConsumerAwareRecordInterceptor;
+import org.springframework.kafka.listener.RecordInterceptor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Title: Kafka 收发指标
+ *
+ * 1. kafka.producer.send：send 调用到 broker 确认的耗时，按 topic、result 区分；
+ * 2. kafka.consumer.queue.time：记录从生产（record timestamp）到被监听器取到的时间，按 group、topic、partition 区分；
+ * 3. kafka.listener.async.handler：交给工作线程异步处理的监听器的实际处理耗时。
+ * 同步监听器的处理耗时使用 spring-kafka 自带的 spring.kafka.listener（按监听器 id 区分），
+ * 分区积压使用客户端指标 kafka.consumer.fetch.manager.records.lag（按 topic、partition 区分），
+ * 见 {@link com.lpy.config.KafkaMetricsConfig}。
+ */
+public class KafkaMetrics {
+
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public KafkaMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 记录一次发送的耗时
+     *
+     * @param topic 主题
+     * @param startNanos 调用 send 前的 System.nanoTime()
+     * @param error 发送失败的异常，成功时为 null
+     */
+    public void recordSend(String topic, long startNanos, Throwable error) {
+        String result = error == null ? "success" : "failure";
+        timers.computeIfAbsent("send|" + topic + "|" + result, k -> Timer.builder("kafka.producer.send")
+                .description("Kafka send to broker acknowledgement latency")
+                .tag("topic", topic)
+                .tag("result", result)
+                .publishPercentiles(PERCENTILES)
+                .register(meterRegistry))
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录从生产到被消费的排队时间，时钟偏差导致的负值按 0 记录
+     */
+    public void recordQueueTime(String group, ConsumerRecord<?, ?> record) {
+        if (record.timestamp() < 0) {
+            return;
+        }
+        long queueMillis = Math.max(0, System.currentTimeMillis() - record.timestamp());
+        String partition = String.valueOf(record.partition());
+        timers.computeIfAbsent("queue|" + group + "|" + record.topic() + "|" + partition, k -> Timer.builder("kafka.consumer.queue.time")
+                .description("Time between record timestamp and listener delivery")
+                .tag("group", group)
+                .tag("topic", record.topic())
+                .tag("partition", partition)
+                .publishPercentiles(PERCENTILES)
+                .register(meterRegistry))
+                .record(queueMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 记录异步监听器在工作线程中的处理耗时
+     */
+    public void recordAsyncHandler(String listener, long startNanos, Throwable error) {
+        String result = error == null ? "success" : "failure";
+        timers.computeIfAbsent("async|" + listener + "|" + result, k -> Timer.builder("kafka.listener.async.handler")
+                .description("Worker-side processing time of asynchronous listeners")
+                .tag("listener", listener)
+                .tag("result", result)
+                .publishPercentiles(PERCENTILES)
+                .register(meterRegistry))
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 单条监听容器的拦截器，在调用监听器前记录排队时间
+     */
+    public <K, V> RecordInterceptor<K, V> recordInterceptor() {
+        // ConsumerAwareRecordInterceptor 提供了已废弃的单参数 intercept 的默认实现，只需实现带 Consumer 的版本
+        ConsumerAwareRecordInterceptor<K, V> interceptor = (record, consumer) -> {
+            recordQueueTime(consumer.groupMetadata().groupId(), record);
+            return record;
+        };
+        return interceptor;
+    }
+
+    /**
+     * 批量监听容器的拦截器，在调用监听器前记录批内每条记录的排队时间
+     */
+    public <K, V> BatchInterceptor<K, V> batchInterceptor() {
+        return (records, consumer) -> {
+            String group = consumer.groupMetadata().groupId();
+            for (ConsumerRecord<K, V> record : records) {
+                recordQueueTime(group, record);
+            }
+            return records;
+        };
+    }
+}
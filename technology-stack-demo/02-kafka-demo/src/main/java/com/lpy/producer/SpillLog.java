@@ -0,0 +1,325 @@
+package com.lpy.producer;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * @Title: 基于内存映射段文件的只追加日志
+ *
+ * 记录依次追加到固定大小的段文件（内存映射），写满后滚动到下一个段；读取位置保存在 checkpoint 文件中，
+ * 读过的段整体删除。段文件数达到上限后拒绝追加，磁盘占用不超过 segmentBytes * maxSegments。
+ *
+ * 记录格式：[length][crc32][payload]，先写 crc 和 payload，最后写 length，length 为 0 表示段内已无记录。
+ * 重新打开时从最后一个段头部扫描，遇到 length 为 0 或 crc 不匹配的位置即为写入位置，之后的内容清零。
+ * 写入只进入页缓存，进程崩溃不丢数据；滚动段和关闭时 force 刷盘，机器掉电可能丢失最后一部分记录。
+ */
+@Slf4j
+public class SpillLog implements Closeable {
+
+    private static final int HEADER_BYTES = 8;
+
+    private static final String SEGMENT_SUFFIX = ".spill";
+
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    private final File dir;
+
+    private final int segmentBytes;
+
+    private final int maxSegments;
+
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+
+    private final RandomAccessFile checkpoint;
+
+    private Segment writeSegment;
+
+    private long readSegmentId;
+
+    private int readPosition;
+
+    private long backlogRecords;
+
+    private long backlogBytes;
+
+    public SpillLog(File dir, int segmentBytes, int maxSegments) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("无法创建溢出队列目录: " + dir);
+        }
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = maxSegments;
+        this.checkpoint = new RandomAccessFile(new File(dir, CHECKPOINT_FILE), "rw");
+        recover();
+    }
+
+    /**
+     * 追加一条记录
+     *
+     * @return 段文件数已达上限、没有空间时返回 false
+     */
+    public synchronized boolean append(byte[] payload) throws IOException {
+        int size = HEADER_BYTES + payload.length;
+        if (size > segmentBytes) {
+            throw new IllegalArgumentException("记录大小超过段文件大小: " + payload.length);
+        }
+        if (segmentBytes - writeSegment.position < size) {
+            if (segments.size() >= maxSegments) {
+                return false;
+            }
+            writeSegment.buffer.force();
+            writeSegment = openSegment(writeSegment.id + 1);
+            segments.put(writeSegment.id, writeSegment);
+        }
+        ByteBuffer buffer = writeSegment.buffer;
+        int position = writeSegment.position;
+        buffer.putInt(position + 4, crc(payload));
+        ByteBuffer target = buffer.duplicate();
+        target.position(position + HEADER_BYTES);
+        target.put(payload);
+        buffer.putInt(position, payload.length);
+        writeSegment.position = position + size;
+        backlogRecords++;
+        backlogBytes += size;
+        return true;
+    }
+
+    /**
+     * 从读取位置开始读取最多 maxRecords 条记录，不移动读取位置
+     */
+    public synchronized List<Entry> peek(int maxRecords) {
+        List<Entry> entries = new ArrayList<>();
+        long segmentId = readSegmentId;
+        int position = readPosition;
+        while (entries.size() < maxRecords) {
+            Segment segment = segments.get(segmentId);
+            int length = segment == null ? 0 : lengthAt(segment, position);
+            if (length == 0) {
+                Long next = segments.higherKey(segmentId);
+                if (segment == writeSegment || next == null) {
+                    break;
+                }
+                segmentId = next;
+                position = 0;
+                continue;
+            }
+            byte[] payload = new byte[length];
+            ByteBuffer source = segment.buffer.duplicate();
+            source.position(position + HEADER_BYTES);
+            source.get(payload);
+            position += HEADER_BYTES + length;
+            entries.add(new Entry(payload, segmentId, position));
+        }
+        return entries;
+    }
+
+    /**
+     * 确认 peek 返回的前若干条记录已处理，读取位置移动到最后一条之后，删除已读完的段
+     *
+     * @param entries peek 返回结果的前缀
+     */
+    public synchronized void commit(List<Entry> entries) throws IOException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        Entry last = entries.get(entries.size() - 1);
+        readSegmentId = last.segmentId;
+        readPosition = last.nextPosition;
+        for (Entry entry : entries) {
+            backlogRecords--;
+            backlogBytes -= HEADER_BYTES + entry.payload.length;
+        }
+        checkpoint.seek(0);
+        checkpoint.writeLong(readSegmentId);
+        checkpoint.writeInt(readPosition);
+        while (segments.firstKey() < readSegmentId) {
+            deleteSegment(segments.pollFirstEntry().getValue());
+        }
+    }
+
+    public synchronized boolean isEmpty() {
+        return backlogRecords == 0;
+    }
+
+    public synchronized long getBacklogRecords() {
+        return backlogRecords;
+    }
+
+    public synchronized long getBacklogBytes() {
+        return backlogBytes;
+    }
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writeSegment.buffer.force();
+        for (Segment segment : segments.values()) {
+            segment.channel.close();
+        }
+        checkpoint.close();
+    }
+
+    private void recover() throws IOException {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(SEGMENT_SUFFIX));
+        List<Long> ids = new ArrayList<>();
+        if (files != null) {
+            for (File file : files) {
+                ids.add(Long.parseLong(file.getName().substring(0, file.getName().length() - SEGMENT_SUFFIX.length())));
+            }
+        }
+        Collections.sort(ids);
+        for (long id : ids) {
+            segments.put(id, openSegment(id));
+        }
+        if (segments.isEmpty()) {
+            segments.put(0L, openSegment(0));
+        }
+        writeSegment = segments.lastEntry().getValue();
+        writeSegment.position = scanValidEnd(writeSegment);
+        // 清除不完整记录之后的残留内容，避免后续追加的记录与残留拼接
+        ByteBuffer tail = writeSegment.buffer.duplicate();
+        tail.position(writeSegment.position);
+        byte[] zeros = new byte[4096];
+        while (tail.hasRemaining()) {
+            tail.put(zeros, 0, Math.min(zeros.length, tail.remaining()));
+        }
+
+        readSegmentId = segments.firstKey();
+        readPosition = 0;
+        if (checkpoint.length() >= 12) {
+            checkpoint.seek(0);
+            long segmentId = checkpoint.readLong();
+            int position = checkpoint.readInt();
+            if (segments.containsKey(segmentId)) {
+                readSegmentId = segmentId;
+                readPosition = segmentId == writeSegment.id ? Math.min(position, writeSegment.position) : position;
+            }
+        }
+        while (segments.firstKey() < readSegmentId) {
+            deleteSegment(segments.pollFirstEntry().getValue());
+        }
+        countBacklog();
+        log.info("溢出队列已打开: dir={}, segments={}, backlog={}", dir, segments.size(), backlogRecords);
+    }
+
+    private void countBacklog() {
+        for (Map.Entry<Long, Segment> entry : segments.tailMap(readSegmentId, true).entrySet()) {
+            Segment segment = entry.getValue();
+            int position = entry.getKey() == readSegmentId ? readPosition : 0;
+            int length;
+            while ((length = lengthAt(segment, position)) > 0) {
+                backlogRecords++;
+                backlogBytes += HEADER_BYTES + length;
+                position += HEADER_BYTES + length;
+            }
+        }
+    }
+
+    private int scanValidEnd(Segment segment) {
+        int position = 0;
+        int length;
+        while ((length = lengthAt(segment, position)) > 0) {
+            byte[] payload = new byte[length];
+            ByteBuffer source = segment.buffer.duplicate();
+            source.position(position + HEADER_BYTES);
+            source.get(payload);
+            if (segment.buffer.getInt(position + 4) != crc(payload)) {
+                log.warn("溢出队列段文件存在不完整记录，已截断: segment={}, position={}", segment.id, position);
+                break;
+            }
+            position += HEADER_BYTES + length;
+        }
+        return position;
+    }
+
+    /**
+     * 读取 position 处的记录长度，段内剩余空间不足或长度非法时返回 0
+     */
+    private int lengthAt(Segment segment, int position) {
+        if (segmentBytes - position < HEADER_BYTES) {
+            return 0;
+        }
+        int length = segment.buffer.getInt(position);
+        return length > 0 && length <= segmentBytes - position - HEADER_BYTES ? length : 0;
+    }
+
+    private Segment openSegment(long id) throws IOException {
+        File file = new File(dir, String.format("%020d%s", id, SEGMENT_SUFFIX));
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.setLength(segmentBytes);
+        FileChannel channel = raf.getChannel();
+        return new Segment(id, file, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes));
+    }
+
+    private void deleteSegment(Segment segment) throws IOException {
+        segment.channel.close();
+        // 映射在 GC 回收前不会释放，Linux 下可以直接删除，Windows 下删除失败时留到下次启动清理
+        if (!segment.file.delete()) {
+            log.warn("溢出队列段文件删除失败: {}", segment.file);
+        }
+    }
+
+    private static int crc(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * peek 返回的记录，带有读完该记录后的位置
+     */
+    public static final class Entry {
+
+        private final byte[] payload;
+
+        private final long segmentId;
+
+        private final int nextPosition;
+
+        private Entry(byte[] payload, long segmentId, int nextPosition) {
+            this.payload = payload;
+            this.segmentId = segmentId;
+            this.nextPosition = nextPosition;
+        }
+
+        public byte[] getPayload() {
+            return payload;
+        }
+    }
+
+    private static final class Segment {
+
+        private final long id;
+
+        private final File file;
+
+        private final FileChannel channel;
+
+        private final MappedByteBuffer buffer;
+
+        private int position;
+
+        private Segment(long id, File file, FileChannel channel, MappedByteBuffer buffer) {
+            this.id = id;
+            this.file = file;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.lpy.producer;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 溢出队列记录编码：已序列化的 topic、key、headers、value 依次写入，长度为 -1 表示 null。
+ * 保存序列化后的字节和 headers（JSON 类型头），重放时原样发送，消费端看到的记录与直接发送一致
+ */
+public final class SpillRecordCodec {
+
+    private SpillRecordCodec() {
+    }
+
+    public static byte[] encode(ProducerRecord<byte[], byte[]> record) {
+        byte[] topic = record.topic().getBytes(StandardCharsets.UTF_8);
+        Header[] headers = record.headers().toArray();
+        int size = 4 + topic.length + 4 + length(record.key()) + 4 + 4 + length(record.value());
+        byte[][] headerKeys = new byte[headers.length][];
+        for (int i = 0; i < headers.length; i++) {
+            headerKeys[i] = headers[i].key().getBytes(StandardCharsets.UTF_8);
+            size += 4 + headerKeys[i].length + 4 + length(headers[i].value());
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        putBytes(buffer, topic);
+        putBytes(buffer, record.key());
+        buffer.putInt(headers.length);
+        for (int i = 0; i < headers.length; i++) {
+            putBytes(buffer, headerKeys[i]);
+            putBytes(buffer, headers[i].value());
+        }
+        putBytes(buffer, record.value());
+        return buffer.array();
+    }
+
+    public static ProducerRecord<byte[], byte[]> decode(byte[] data) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        String topic = new String(getBytes(buffer), StandardCharsets.UTF_8);
+        byte[] key = getBytes(buffer);
+        int headerCount = buffer.getInt();
+        RecordHeaders headers = new RecordHeaders();
+        for (int i = 0; i < headerCount; i++) {
+            headers.add(new String(getBytes(buffer), StandardCharsets.UTF_8), getBytes(buffer));
+        }
+        byte[] value = getBytes(buffer);
+        return new ProducerRecord<>(topic, null, key, value, headers);
+    }
+
+    private static int length(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static byte[] getBytes(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
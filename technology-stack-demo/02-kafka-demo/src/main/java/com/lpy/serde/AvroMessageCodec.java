@@ -0,0 +1,152 @@
+package com.lpy.serde;
+
+import com.lpy.entity.Message;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaNormalization;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @Title: Message 的 Avro 二进制编解码
+ *
+ * 使用 Avro 单对象编码：2 字节标记 0xC3 0x01 + 8 字节小端序 schema 指纹 + Avro 二进制数据。
+ * 字段按下标读写 GenericData.Record，不走反射；编码器直接写入池化的 ByteBuffer。
+ * JSON 文本不会以 0xC3 开头，消费端据此区分新旧格式，两种格式可以在同一主题中共存。
+ */
+public class AvroMessageCodec {
+
+    private static final byte MARKER_0 = (byte) 0xC3;
+
+    private static final byte MARKER_1 = (byte) 0x01;
+
+    private static final int HEADER_LENGTH = 10;
+
+    private static final Map<String, AvroMessageCodec> CODECS = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<BinaryEncoder> ENCODER = new ThreadLocal<>();
+
+    private static final ThreadLocal<BinaryDecoder> DECODER = new ThreadLocal<>();
+
+    private final FileSchemaRegistry registry;
+
+    private final Schema schema;
+
+    private final long fingerprint;
+
+    private final GenericDatumWriter<GenericRecord> writer;
+
+    /**
+     * 写入 schema 指纹 -> 解析到当前 schema 的 reader
+     */
+    private final Map<Long, GenericDatumReader<GenericRecord>> readers = new ConcurrentHashMap<>();
+
+    private final ByteBufferPool bufferPool = new ByteBufferPool(64, 512, 1024 * 1024);
+
+    private final int idField;
+    private final int contentField;
+    private final int senderField;
+    private final int timestampField;
+    private final int topicField;
+
+    public static AvroMessageCodec forLocation(String schemaLocation) {
+        return CODECS.computeIfAbsent(schemaLocation, location -> new AvroMessageCodec(FileSchemaRegistry.forLocation(location)));
+    }
+
+    private AvroMessageCodec(FileSchemaRegistry registry) {
+        this.registry = registry;
+        this.schema = registry.getLatest(Message.class.getName());
+        this.fingerprint = SchemaNormalization.parsingFingerprint64(schema);
+        this.writer = new GenericDatumWriter<>(schema);
+        this.idField = schema.getField("id").pos();
+        this.contentField = schema.getField("content").pos();
+        this.senderField = schema.getField("sender").pos();
+        this.timestampField = schema.getField("timestamp").pos();
+        this.topicField = schema.getField("topic").pos();
+    }
+
+    public static boolean isAvro(byte[] data) {
+        return data != null && data.length >= HEADER_LENGTH && data[0] == MARKER_0 && data[1] == MARKER_1;
+    }
+
+    public byte[] encode(Message message) {
+        GenericData.Record record = new GenericData.Record(schema);
+        record.put(idField, message.getId());
+        record.put(contentField, message.getContent());
+        record.put(senderField, message.getSender());
+        record.put(timestampField, message.getTimestamp() == null ? null
+                : message.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli());
+        record.put(topicField, message.getTopic());
+
+        ByteBufferOutputStream out = new ByteBufferOutputStream(bufferPool);
+        try {
+            out.write(MARKER_0);
+            out.write(MARKER_1);
+            out.writeLongLittleEndian(fingerprint);
+            // directBinaryEncoder 没有内部缓冲，直接写入池化的 ByteBuffer
+            BinaryEncoder encoder = EncoderFactory.get().directBinaryEncoder(out, ENCODER.get());
+            ENCODER.set(encoder);
+            writer.write(record, encoder);
+            encoder.flush();
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Message序列化失败", e);
+        } finally {
+            out.release();
+        }
+    }
+
+    public Message decode(byte[] data) {
+        if (!isAvro(data)) {
+            throw new IllegalArgumentException("不是Avro单对象编码的数据");
+        }
+        long writerFingerprint = 0;
+        for (int i = Long.BYTES - 1; i >= 0; i--) {
+            writerFingerprint = (writerFingerprint << 8) | (data[2 + i] & 0xFF);
+        }
+        GenericDatumReader<GenericRecord> reader = readers.computeIfAbsent(writerFingerprint,
+                fp -> new GenericDatumReader<>(registry.getByFingerprint(fp), schema));
+
+        BinaryDecoder decoder = DecoderFactory.get().binaryDecoder(data, HEADER_LENGTH, data.length - HEADER_LENGTH, DECODER.get());
+        DECODER.set(decoder);
+        GenericRecord record;
+        try {
+            record = reader.read(null, decoder);
+        } catch (IOException e) {
+            throw new IllegalStateException("Message反序列化失败", e);
+        }
+
+        Message message = new Message();
+        message.setId(asString(record.get(idField)));
+        message.setContent(asString(record.get(contentField)));
+        message.setSender(asString(record.get(senderField)));
+        Object timestamp = record.get(timestampField);
+        if (timestamp != null) {
+            long millis = (Long) timestamp;
+            message.setTimestamp(LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000L),
+                    (int) Math.floorMod(millis, 1000L) * 1_000_000, ZoneOffset.UTC));
+        }
+        message.setTopic(asString(record.get(topicField)));
+        return message;
+    }
+
+    ByteBufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    private static String asString(Object value) {
+        // Avro 字符串默认解码为 Utf8
+        return value == null ? null : value.toString();
+    }
+}
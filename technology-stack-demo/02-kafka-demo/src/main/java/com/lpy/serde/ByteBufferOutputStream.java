@@ -0,0 +1,57 @@
+package com.lpy.serde;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * 写入池化 ByteBuffer 的输出流，用完调用 release 归还缓冲区，非线程安全
+ */
+class ByteBufferOutputStream extends OutputStream {
+
+    private final ByteBufferPool pool;
+
+    private ByteBuffer buffer;
+
+    ByteBufferOutputStream(ByteBufferPool pool) {
+        this.pool = pool;
+        this.buffer = pool.acquire();
+    }
+
+    @Override
+    public void write(int b) {
+        ensureRemaining(1);
+        buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        ensureRemaining(len);
+        buffer.put(b, off, len);
+    }
+
+    /**
+     * 按小端序写入 long，Avro 单对象编码的指纹使用小端序
+     */
+    void writeLongLittleEndian(long value) {
+        ensureRemaining(Long.BYTES);
+        for (int i = 0; i < Long.BYTES; i++) {
+            buffer.put((byte) (value >>> (8 * i)));
+        }
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    void release() {
+        pool.release(buffer);
+        buffer = null;
+    }
+
+    private void ensureRemaining(int length) {
+        if (buffer.remaining() < length) {
+            buffer = pool.grow(buffer, length);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.lpy.serde;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 可复用的 ByteBuffer 池
+ *
+ * 序列化时从池中借出缓冲区直接写入，写完复制出一份正好大小的 byte[] 交给生产者后归还，
+ * 每条记录只分配最终结果这一次。超过 maxCapacity 的缓冲区用完即丢弃，避免偶发大消息长期占用内存。
+ */
+public class ByteBufferPool {
+
+    private final BlockingQueue<ByteBuffer> buffers;
+
+    private final int initialCapacity;
+
+    private final int maxCapacity;
+
+    public ByteBufferPool(int maxPooled, int initialCapacity, int maxCapacity) {
+        this.buffers = new ArrayBlockingQueue<>(maxPooled);
+        this.initialCapacity = initialCapacity;
+        this.maxCapacity = maxCapacity;
+    }
+
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocate(initialCapacity);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    public void release(ByteBuffer buffer) {
+        if (buffer.capacity() <= maxCapacity) {
+            buffers.offer(buffer);
+        }
+    }
+
+    /**
+     * 扩容：按两倍申请新缓冲区并复制已写入的内容，旧缓冲区归还
+     */
+    public ByteBuffer grow(ByteBuffer buffer, int minRemaining) {
+        int capacity = Math.max(buffer.capacity() * 2, buffer.position() + minRemaining);
+        ByteBuffer bigger = ByteBuffer.allocate(capacity);
+        buffer.flip();
+        bigger.put(buffer);
+        release(buffer);
+        return bigger;
+    }
+
+    public int getPooledCount() {
+        return buffers.size();
+    }
+}
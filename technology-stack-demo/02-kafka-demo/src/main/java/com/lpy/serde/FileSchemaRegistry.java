@@ -0,0 +1,100 @@
+package com.lpy.serde;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaNormalization;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * @Title: 基于文件的 Schema 注册中心
+ *
+ * 代替独立的 Schema Registry 服务：从目录加载 <全限定名>-v<版本>.avsc，
+ * 按 Avro 的 64 位指纹（CRC-64-AVRO）索引每个版本，同名 schema 的最高版本作为当前读写版本。
+ * 消息头部带写入时的指纹，读取时按指纹找到写入 schema 再解析到当前版本，支持字段增删的演进。
+ *
+ * 序列化器由 Kafka 客户端按类名实例化，拿不到 Spring 容器，因此按位置缓存单例。
+ */
+@Slf4j
+public class FileSchemaRegistry {
+
+    private static final Pattern FILE_NAME = Pattern.compile("(.+)-v(\\d+)\\.avsc");
+
+    private static final Map<String, FileSchemaRegistry> REGISTRIES = new ConcurrentHashMap<>();
+
+    private final Map<Long, Schema> byFingerprint = new HashMap<>();
+
+    private final Map<String, Schema> latest = new HashMap<>();
+
+    private final Map<String, Integer> latestVersions = new HashMap<>();
+
+    /**
+     * @param location 目录，如 classpath:schemas/、file:/etc/kafka-demo/schemas/
+     */
+    public static FileSchemaRegistry forLocation(String location) {
+        return REGISTRIES.computeIfAbsent(location, FileSchemaRegistry::new);
+    }
+
+    private FileSchemaRegistry(String location) {
+        String pattern = (location.endsWith("/") ? location : location + "/") + "*.avsc";
+        try {
+            for (Resource resource : new PathMatchingResourcePatternResolver().getResources(pattern)) {
+                register(resource);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("加载schema失败: " + pattern, e);
+        }
+        log.info("Schema注册中心加载完成: location={}, schemas={}, versions={}", location, latestVersions, byFingerprint.size());
+    }
+
+    private void register(Resource resource) throws IOException {
+        Matcher matcher = FILE_NAME.matcher(resource.getFilename());
+        if (!matcher.matches()) {
+            log.warn("忽略命名不符合 <全限定名>-v<版本>.avsc 的schema文件: {}", resource.getFilename());
+            return;
+        }
+        Schema schema;
+        try (InputStream in = resource.getInputStream()) {
+            schema = new Schema.Parser().parse(in);
+        }
+        if (!schema.getFullName().equals(matcher.group(1))) {
+            throw new IllegalStateException("schema文件名与schema全限定名不一致: " + resource.getFilename());
+        }
+        byFingerprint.put(SchemaNormalization.parsingFingerprint64(schema), schema);
+        int version = Integer.parseInt(matcher.group(2));
+        if (version > latestVersions.getOrDefault(schema.getFullName(), 0)) {
+            latestVersions.put(schema.getFullName(), version);
+            latest.put(schema.getFullName(), schema);
+        }
+    }
+
+    /**
+     * 当前版本的 schema
+     */
+    public Schema getLatest(String fullName) {
+        Schema schema = latest.get(fullName);
+        if (schema == null) {
+            throw new IllegalArgumentException("未注册的schema: " + fullName);
+        }
+        return schema;
+    }
+
+    /**
+     * 按指纹查找写入时使用的 schema
+     */
+    public Schema getByFingerprint(long fingerprint) {
+        Schema schema = byFingerprint.get(fingerprint);
+        if (schema == null) {
+            throw new IllegalArgumentException("未知的schema指纹: " + Long.toHexString(fingerprint));
+        }
+        return schema;
+    }
+}
@@ -0,0 +1,60 @@
+package com.lpy.serde;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.Map;
+
+/**
+ * 值反序列化器：按数据头部识别格式，Avro 单对象编码解析为 Message，其余交给 JsonDeserializer，
+ * 切换生产端格式时消费端不需要同步修改
+ */
+public class MessageDeserializer implements Deserializer<Object> {
+
+    private final JsonDeserializer<Object> json = new JsonDeserializer<>();
+
+    private String schemaLocation = MessageSerializer.DEFAULT_SCHEMA_LOCATION;
+
+    private volatile AvroMessageCodec avro;
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        json.configure(configs, isKey);
+        Object location = configs.get(MessageSerializer.SCHEMA_LOCATION_CONFIG);
+        if (location != null) {
+            schemaLocation = location.toString();
+        }
+    }
+
+    @Override
+    public Object deserialize(String topic, byte[] data) {
+        if (AvroMessageCodec.isAvro(data)) {
+            return avro().decode(data);
+        }
+        return json.deserialize(topic, data);
+    }
+
+    @Override
+    public Object deserialize(String topic, Headers headers, byte[] data) {
+        if (AvroMessageCodec.isAvro(data)) {
+            return avro().decode(data);
+        }
+        return json.deserialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        json.close();
+    }
+
+    /**
+     * 只有收到 Avro 数据时才加载 schema
+     */
+    private AvroMessageCodec avro() {
+        if (avro == null) {
+            avro = AvroMessageCodec.forLocation(schemaLocation);
+        }
+        return avro;
+    }
+}
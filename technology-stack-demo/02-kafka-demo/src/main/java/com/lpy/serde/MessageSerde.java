@@ -0,0 +1,14 @@
+package com.lpy.serde;
+
+import org.apache.kafka.common.serialization.Serdes;
+
+/**
+ * Kafka Streams 使用的值 Serde，组合 {@link MessageSerializer} 和 {@link MessageDeserializer}，
+ * 读写格式与生产者、监听器一致
+ */
+public class MessageSerde extends Serdes.WrapperSerde<Object> {
+
+    public MessageSerde() {
+        super(new MessageSerializer(), new MessageDeserializer());
+    }
+}
@@ -0,0 +1,162 @@
+package com.lpy.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 死信重放工具
+ *
+ * 按原始字节读取死信主题中的记录，去掉死信和重试相关的消息头后发送回原主题，原有业务消息头保持不变。
+ * 重放进度以消费者组 dlt-replay 提交，重复调用只会重放新进入死信主题的记录。
+ */
+@Service
+@Slf4j
+public class DeadLetterReplayService {
+
+    /**
+     * 死信主题后缀，重试主题和批量消费的死信都使用 <topic>.DLT
+     */
+    public static final String DLT_SUFFIX = ".DLT";
+
+    private static final String REPLAY_GROUP = "dlt-replay";
+
+    private static final String[] RETRY_HEADER_PREFIXES = {
+            KafkaHeaders.PREFIX + "original-",
+            KafkaHeaders.PREFIX + "exception-",
+            KafkaHeaders.PREFIX + "key-exception-",
+            KafkaHeaders.PREFIX + "dlt-",
+            "retry_topic-"
+    };
+
+    @Autowired
+    private KafkaTemplate<byte[], byte[]> bytesKafkaTemplate;
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    /**
+     * 重放死信主题中尚未重放的记录
+     *
+     * @param dltTopic 死信主题
+     * @param targetTopic 目标主题，为空时发送回原主题（死信主题去掉后缀）
+     * @param maxRecords 本次最多重放的记录数
+     * @return 重放的记录数
+     */
+    public int replay(String dltTopic, String targetTopic, int maxRecords) throws Exception {
+        String target = targetTopic != null && !targetTopic.isEmpty() ? targetTopic : originalTopic(dltTopic);
+        int replayed = 0;
+        try (Consumer<byte[], byte[]> consumer = createConsumer(maxRecords)) {
+            List<TopicPartition> partitions = new ArrayList<>();
+            for (PartitionInfo info : consumer.partitionsFor(dltTopic)) {
+                partitions.add(new TopicPartition(dltTopic, info.partition()));
+            }
+            consumer.assign(partitions);
+
+            while (replayed < maxRecords) {
+                ConsumerRecords<byte[], byte[]> records = consumer.poll(Duration.ofSeconds(1));
+                if (records.isEmpty()) {
+                    break;
+                }
+                Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+                for (ConsumerRecord<byte[], byte[]> record : records) {
+                    if (replayed >= maxRecords) {
+                        break;
+                    }
+                    ProducerRecord<byte[], byte[]> replay = new ProducerRecord<>(target, null, record.key(), record.value());
+                    for (Header header : record.headers()) {
+                        if (!isRetryHeader(header.key())) {
+                            replay.headers().add(header);
+                        }
+                    }
+                    bytesKafkaTemplate.send(replay).get(10, TimeUnit.SECONDS);
+                    offsets.put(new TopicPartition(record.topic(), record.partition()),
+                            new OffsetAndMetadata(record.offset() + 1));
+                    replayed++;
+                }
+                // 发送成功后再提交，失败时下次从未提交处继续
+                consumer.commitSync(offsets);
+            }
+        }
+        log.info("死信重放完成: dltTopic={}, target={}, count={}", dltTopic, target, replayed);
+        return replayed;
+    }
+
+    private Consumer<byte[], byte[]> createConsumer(int maxRecords) {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, REPLAY_GROUP);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, Math.max(1, Math.min(maxRecords, 500)));
+        return new DefaultKafkaConsumerFactory<byte[], byte[]>(props).createConsumer();
+    }
+
+    private static String originalTopic(String dltTopic) {
+        if (!dltTopic.endsWith(DLT_SUFFIX)) {
+            throw new IllegalArgumentException("不是死信主题: " + dltTopic);
+        }
+        return dltTopic.substring(0, dltTopic.length() - DLT_SUFFIX.length());
+    }
+
+    /**
+     * 死信恢复时添加的原始位置、异常信息头和重试主题信息头，重放时去掉，让记录重新开始计算重试次数
+     */
+    private static boolean isRetryHeader(String key) {
+        for (String prefix : RETRY_HEADER_PREFIXES) {
+            if (key.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 读取字符串消息头，多次进入死信时取第一个（最初的）值
+     */
+    public static String headerAsString(Headers headers, String key) {
+        Header header = first(headers, key);
+        return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 读取 long 类型的消息头，如原始位移
+     */
+    public static Long headerAsLong(Headers headers, String key) {
+        Header header = first(headers, key);
+        return header == null || header.value().length != Long.BYTES ? null : ByteBuffer.wrap(header.value()).getLong();
+    }
+
+    private static Header first(Headers headers, String key) {
+        for (Header header : headers.headers(key)) {
+            return header;
+        }
+        return null;
+    }
+}
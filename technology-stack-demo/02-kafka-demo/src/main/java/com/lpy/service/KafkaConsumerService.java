@@ -2,16 +2,26 @@ package com.lpy.service;
 
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lpy.consumer.BatchProcessResult;
+import com.lpy.config.ParallelKafkaConfig;
+import com.lpy.consumer.KeyOrderedExecutor;
+import com.lpy.consumer.ListenerBackpressure;
+import com.lpy.consumer.ParallelBatchProcessor;
 import com.lpy.entity.Message;
+import com.lpy.metrics.KafkaMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.annotation.DltHandler;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.RetryableTopic;
 import org.springframework.kafka.annotation.TopicPartition;
+import org.springframework.kafka.listener.BatchListenerFailedException;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.retry.annotation.Backoff;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -23,10 +33,22 @@ public class KafkaConsumerService {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private KeyOrderedExecutor parallelRecordExecutor;
+
+    @Autowired
+    private ListenerBackpressure parallelBackpressure;
+
+    @Autowired
+    private ParallelBatchProcessor parallelBatchProcessor;
+
+    @Autowired
+    private KafkaMetrics kafkaMetrics;
+
     /**
      * 监听简单字符串消息
      */
-    @KafkaListener(topics = "test-topic", groupId = "demo-group-1")
+    @KafkaListener(id = "test-listener", topics = "test-topic", groupId = "demo-group-1")
     public void consumeMessage(String message) {
         log.info("接收到消息: {}", message);
         // 处理消息逻辑
@@ -53,7 +75,7 @@ public class KafkaConsumerService {
     /**
      * 监听对象消息
      */
-    @KafkaListener(topics = "object-topic", groupId = "demo-group-3")
+    @KafkaListener(id = "object-listener", topics = "object-topic", groupId = "demo-group-3")
     public void consumeObjectMessage(Message message) {
         log.info("接收到对象消息: {}", message);
         // 处理对象消息
@@ -61,43 +83,71 @@ public class KafkaConsumerService {
     }
 
     /**
-     * 监听消息并手动确认
+     * 监听消息并手动确认：处理成功后确认；处理失败时抛出异常，记录转发到重试主题后由容器提交位移，
+     * 未确认的记录不会阻塞分区内后续的消息
      */
-    @KafkaListener(topics = "manual-ack-topic", groupId = "demo-group-4")
+    @RetryableTopic(
+            attempts = "${kafka.retry.attempts:4}",
+            backoff = @Backoff(delayExpression = "${kafka.retry.delay:1000}",
+                    multiplierExpression = "${kafka.retry.multiplier:2.0}",
+                    maxDelayExpression = "${kafka.retry.max-delay:10000}"),
+            dltTopicSuffix = DeadLetterReplayService.DLT_SUFFIX,
+            kafkaTemplate = "kafkaTemplate")
+    @KafkaListener(topics = "manual-ack-topic", groupId = "demo-group-4", containerFactory = "manualAckKafkaListenerContainerFactory")
     public void consumeMessageWithManualAck(
             ConsumerRecord<String, String> record,
             Acknowledgment ack) {
 
-        try {
-            log.info("接收到需手动确认的消息: key={}, value={}, partition={}, offset={}",
-                    record.key(), record.value(), record.partition(), record.offset());
-
-            // 处理消息
-            processMessage(record.value());
+        log.info("接收到需手动确认的消息: key={}, value={}, partition={}, offset={}",
+                record.key(), record.value(), record.partition(), record.offset());
 
-            // 手动确认
-            ack.acknowledge();
-            log.info("消息处理完成并已确认");
+        // 处理消息，异常交给重试主题
+        processMessage(record.value());
 
-        } catch (Exception e) {
-            log.error("处理消息失败: {}", e.getMessage());
-            // 根据业务需求决定是否确认
-            // ack.acknowledge(); // 确认消息，避免重复消费
-        }
+        // 手动确认
+        ack.acknowledge();
+        log.info("消息处理完成并已确认");
     }
 
     /**
-     * 批量消息监听
+     * 批量消息监听：批内按 key 分组并行处理，全部完成后整批提交；
+     * 有失败时抛出 BatchListenerFailedException，之前的记录照常提交，只有失败记录进入重试和死信
      */
-    @KafkaListener(topics = "batch-topic", groupId = "demo-group-5", containerFactory = "batchKafkaListenerContainerFactory")
+    @KafkaListener(id = "batch-listener", topics = "batch-topic", groupId = "demo-group-5", containerFactory = "batchKafkaListenerContainerFactory")
     public void consumeBatchMessages(List<ConsumerRecord<String, String>> records) {
-        log.info("接收到批量消息，数量: {}", records.size());
+        BatchProcessResult result = parallelBatchProcessor.process(records, record -> processMessage(record.value()));
+
+        int failedIndex = result.getFirstIncompleteIndex();
+        if (failedIndex < 0) {
+            log.info("批量消息处理完成: count={}, groups={}, skipped={}, elapsed={}ms",
+                    result.getTotal(), result.getGroups(),
+                    result.count(BatchProcessResult.Outcome.SKIPPED), result.getElapsedMillis());
+            return;
+        }
 
-        for (ConsumerRecord<String, String> record : records) {
-            log.info("批量消息处理: key={}, value={}, partition={}, offset={}",
-                    record.key(), record.value(), record.partition(), record.offset());
-            processMessage(record.value());
+        ConsumerRecord<String, String> failed = records.get(failedIndex);
+        log.warn("批量消息部分处理失败: count={}, failed={}, notAttempted={}, firstFailed={}-{}@{}",
+                result.getTotal(), result.count(BatchProcessResult.Outcome.FAILED),
+                result.count(BatchProcessResult.Outcome.NOT_ATTEMPTED),
+                failed.topic(), failed.partition(), failed.offset());
+        Exception cause = result.getError(failedIndex);
+        throw new BatchListenerFailedException("批量消息处理失败: key=" + failed.key(),
+                cause != null ? cause : new IllegalStateException("批量处理超时"), failedIndex);
+    }
+
+    /**
+     * 原始字节批量监听：值不做反序列化，直接以 byte[] 交给业务处理，省去字符串解码和复制
+     */
+    @KafkaListener(topics = "raw-topic", groupId = "demo-group-9", containerFactory = "rawKafkaListenerContainerFactory")
+    public void consumeRawMessages(List<ConsumerRecord<String, byte[]>> records) {
+        long bytes = 0;
+        for (ConsumerRecord<String, byte[]> record : records) {
+            if (record.value() != null) {
+                bytes += record.value().length;
+                processPayload(record.value());
+            }
         }
+        log.info("接收到原始字节批量消息: count={}, bytes={}", records.size(), bytes);
     }
 
     /**
@@ -117,25 +167,66 @@ public class KafkaConsumerService {
     }
 
     /**
-     * 错误处理示例
+     * 错误处理示例：处理失败的消息转发到按延迟分级的重试主题（error-topic-retry-1000、error-topic-retry-2000…），
+     * 按指数退避延迟后重新消费，主题中排在后面的消息不受影响；重试耗尽后进入死信主题 error-topic.DLT
      */
+    @RetryableTopic(
+            attempts = "${kafka.retry.attempts:4}",
+            backoff = @Backoff(delayExpression = "${kafka.retry.delay:1000}",
+                    multiplierExpression = "${kafka.retry.multiplier:2.0}",
+                    maxDelayExpression = "${kafka.retry.max-delay:10000}"),
+            dltTopicSuffix = DeadLetterReplayService.DLT_SUFFIX,
+            kafkaTemplate = "kafkaTemplate")
     @KafkaListener(topics = "error-topic", groupId = "demo-group-7")
     public void consumeMessageWithErrorHandling(String message) {
-        try {
-            log.info("处理可能出错的消息: {}", message);
+        log.info("处理可能出错的消息: {}", message);
 
-            // 模拟处理可能出错的场景
-            if (message.contains("error")) {
-                throw new RuntimeException("模拟处理错误");
-            }
+        // 模拟处理可能出错的场景
+        if (message.contains("error")) {
+            throw new RuntimeException("模拟处理错误");
+        }
 
-            processMessage(message);
+        processMessage(message);
+    }
 
-        } catch (Exception e) {
-            log.error("消息处理出错: message={}, error={}", message, e.getMessage());
-            // 可以将错误消息发送到死信队列或进行其他错误处理
-            handleMessageError(message, e);
-        }
+    /**
+     * 死信处理：重试耗尽的消息，死信记录保留原始消息头，并带有原主题、分区、位移和异常信息头，
+     * 可通过 /api/kafka/dlt/replay 修复后重放回原主题
+     */
+    @DltHandler
+    public void handleDeadLetter(ConsumerRecord<String, Object> record) {
+        log.error("消息重试耗尽进入死信主题: topic={}, originalTopic={}, originalOffset={}, exception={}, error={}",
+                record.topic(),
+                DeadLetterReplayService.headerAsString(record.headers(), KafkaHeaders.ORIGINAL_TOPIC),
+                DeadLetterReplayService.headerAsLong(record.headers(), KafkaHeaders.ORIGINAL_OFFSET),
+                DeadLetterReplayService.headerAsString(record.headers(), KafkaHeaders.EXCEPTION_FQCN),
+                DeadLetterReplayService.headerAsString(record.headers(), KafkaHeaders.EXCEPTION_MESSAGE));
+    }
+
+    /**
+     * 分区内并行消费：同 key 顺序处理，不同 key 并行处理，处理完成后在工作线程中确认，
+     * 容器只提交到连续已确认的位移；工作队列超过高水位时暂停拉取
+     */
+    @KafkaListener(id = ParallelKafkaConfig.LISTENER_ID, topics = "parallel-topic", groupId = "demo-group-8",
+            containerFactory = "parallelKafkaListenerContainerFactory")
+    public void consumeInParallel(ConsumerRecord<String, String> record, Acknowledgment ack) {
+        parallelBackpressure.acquire();
+        parallelRecordExecutor.execute(record.key(), () -> {
+            long start = System.nanoTime();
+            Exception error = null;
+            try {
+                processMessage(record.value());
+            } catch (Exception e) {
+                error = e;
+                handleMessageError(record.value(), e);
+            } finally {
+                // 监听方法提交任务后立即返回，spring.kafka.listener 只反映提交耗时，实际处理耗时单独记录
+                kafkaMetrics.recordAsyncHandler(ParallelKafkaConfig.LISTENER_ID, start, error);
+                // 失败也要确认，否则后续位移无法提交、分区停止拉取
+                ack.acknowledge();
+                parallelBackpressure.release();
+            }
+        });
     }
 
     /**
@@ -153,6 +244,13 @@ public class KafkaConsumerService {
         }
     }
 
+    /**
+     * 处理原始字节消息的业务逻辑，需要文本时再按 UTF-8 解码
+     */
+    private void processPayload(byte[] payload) {
+        log.debug("处理原始字节消息: length={}", payload.length);
+    }
+
     /**
      * 处理对象消息的业务逻辑
      */
@@ -1,7 +1,10 @@
 package com.lpy.service;
 
+import com.lpy.entity.BatchSendResult;
 import com.lpy.entity.Message;
+import com.lpy.metrics.KafkaMetrics;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
@@ -9,6 +12,15 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.concurrent.ListenableFuture;
 import org.springframework.util.concurrent.ListenableFutureCallback;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 @Service
 @Slf4j
 public class KafkaProducerService {
@@ -16,6 +28,15 @@ public class KafkaProducerService {
     @Autowired
     private KafkaTemplate<String, Object> kafkaTemplate;
 
+    @Autowired
+    private KafkaTemplate<byte[], byte[]> bytesKafkaTemplate;
+
+    @Autowired
+    private KafkaMetrics kafkaMetrics;
+
+    @Autowired(required = false)
+    private KafkaSpillService spillService;
+
     /**
      * 发送简单字符串消息
      *
@@ -24,12 +45,17 @@ public class KafkaProducerService {
      */
     public void sendMessage(String topic, String message) {
         log.info("发送消息到主题 {}: {}", topic, message);
+        if (spillIfActive(topic, null, message)) {
+            return;
+        }
 
+        long start = System.nanoTime();
         ListenableFuture<SendResult<String, Object>> future = kafkaTemplate.send(topic, message);
 
         future.addCallback(new ListenableFutureCallback<SendResult<String, Object>>() {
             @Override
             public void onSuccess(SendResult<String, Object> result) {
+                kafkaMetrics.recordSend(topic, start, null);
                 log.info("消息发送成功: topic={}, partition={}, offset={}",
                         result.getRecordMetadata().topic(),
                         result.getRecordMetadata().partition(),
@@ -38,7 +64,9 @@ public class KafkaProducerService {
 
             @Override
             public void onFailure(Throwable ex) {
+                kafkaMetrics.recordSend(topic, start, ex);
                 log.error("消息发送失败: topic={}, message={}, error={}", topic, message, ex.getMessage());
+                spillOnFailure(topic, null, message, ex);
             }
         });
     }
@@ -52,12 +80,52 @@ public class KafkaProducerService {
      */
     public void sendMessage(String topic, String key, String message) {
         log.info("发送带键消息到主题 {} (key={}): {}", topic, key, message);
+        if (spillIfActive(topic, key, message)) {
+            return;
+        }
 
+        long start = System.nanoTime();
         kafkaTemplate.send(topic, key, message).addCallback(
-                result -> log.info("消息发送成功: key={}, topic={}, partition={}, offset={}",
-                        key, result.getRecordMetadata().topic(),
-                        result.getRecordMetadata().partition(), result.getRecordMetadata().offset()),
-                failure -> log.error("消息发送失败: key={}, topic={}, error={}", key, topic, failure.getMessage())
+                result -> {
+                    kafkaMetrics.recordSend(topic, start, null);
+                    log.info("消息发送成功: key={}, topic={}, partition={}, offset={}",
+                            key, result.getRecordMetadata().topic(),
+                            result.getRecordMetadata().partition(), result.getRecordMetadata().offset());
+                },
+                failure -> {
+                    kafkaMetrics.recordSend(topic, start, failure);
+                    log.error("消息发送失败: key={}, topic={}, error={}", key, topic, failure.getMessage());
+                    spillOnFailure(topic, key, message, failure);
+                }
+        );
+    }
+
+    /**
+     * 发送原始字节消息，不经过序列化
+     *
+     * @param topic 主题
+     * @param key 消息键，可以为空
+     * @param payload 消息内容
+     */
+    public void sendRaw(String topic, String key, byte[] payload) {
+        byte[] keyBytes = key == null ? null : key.getBytes(StandardCharsets.UTF_8);
+        ProducerRecord<byte[], byte[]> record = new ProducerRecord<>(topic, keyBytes, payload);
+        if (spillRawIfActive(record)) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        bytesKafkaTemplate.send(record).addCallback(
+                result -> {
+                    kafkaMetrics.recordSend(topic, start, null);
+                    log.debug("原始字节消息发送成功: topic={}, partition={}, offset={}",
+                            topic, result.getRecordMetadata().partition(), result.getRecordMetadata().offset());
+                },
+                failure -> {
+                    kafkaMetrics.recordSend(topic, start, failure);
+                    log.error("原始字节消息发送失败: key={}, topic={}, error={}", key, topic, failure.getMessage());
+                    spillRawOnFailure(record, key, failure);
+                }
         );
     }
 
@@ -69,29 +137,196 @@ public class KafkaProducerService {
      */
     public void sendMessage(String topic, Message message) {
         log.info("发送对象消息到主题 {}: {}", topic, message);
+        if (spillIfActive(topic, message.getId(), message)) {
+            return;
+        }
 
+        long start = System.nanoTime();
         kafkaTemplate.send(topic, message.getId(), message).addCallback(
-                result -> log.info("对象消息发送成功: id={}, topic={}, partition={}, offset={}",
-                        message.getId(), result.getRecordMetadata().topic(),
-                        result.getRecordMetadata().partition(), result.getRecordMetadata().offset()),
-                failure -> log.error("对象消息发送失败: id={}, topic={}, error={}",
-                        message.getId(), topic, failure.getMessage())
+                result -> {
+                    kafkaMetrics.recordSend(topic, start, null);
+                    log.info("对象消息发送成功: id={}, topic={}, partition={}, offset={}",
+                            message.getId(), result.getRecordMetadata().topic(),
+                            result.getRecordMetadata().partition(), result.getRecordMetadata().offset());
+                },
+                failure -> {
+                    kafkaMetrics.recordSend(topic, start, failure);
+                    log.error("对象消息发送失败: id={}, topic={}, error={}",
+                            message.getId(), topic, failure.getMessage());
+                    spillOnFailure(topic, message.getId(), message, failure);
+                }
         );
     }
 
     /**
-     * 批量发送消息
+     * 批量发送消息，兼容旧接口，等价于 sendBatch(topic, messages, false)
      *
      * @param topic 主题
      * @param messages 消息列表
+     * @return 全部消息得到确认后完成
+     */
+    public CompletableFuture<BatchSendResult> sendBatchMessages(String topic, List<String> messages) {
+        return sendBatch(topic, messages, false);
+    }
+
+    /**
+     * 批量发送消息。Message 对象以 id 为键，其他消息不带键，由粘性分区器把连续的消息放进同一个批次
+     *
+     * @param topic 主题
+     * @param messages 消息列表，字符串或对象
+     * @param flush 全部提交给 producer 后是否立即 flush，不等待 linger.ms
+     * @return 全部消息得到确认后完成
+     */
+    public CompletableFuture<BatchSendResult> sendBatch(String topic, List<?> messages, boolean flush) {
+        List<ProducerRecord<String, Object>> records = new ArrayList<>(messages.size());
+        for (Object message : messages) {
+            String key = message instanceof Message ? ((Message) message).getId() : null;
+            records.add(new ProducerRecord<>(topic, key, message));
+        }
+        return sendBatch(records, flush);
+    }
+
+    /**
+     * 批量发送记录。所有记录在同一个 producer 上异步发送，按 linger.ms / batch.size 合并成批次；
+     * 不逐条打印日志，整批完成后汇总一次结果，单条失败记录在 failures 中，不影响其他记录。
+     * 溢出队列有积压时记录直接写入队列，broker 不可用导致的失败也写入队列，这些记录计入 spilled
+     *
+     * @param records 待发送的记录
+     * @param flush 全部提交给 producer 后是否立即 flush
+     * @return 全部记录得到确认后完成，不会异常完成
+     */
+    public CompletableFuture<BatchSendResult> sendBatch(List<ProducerRecord<String, Object>> records, boolean flush) {
+        CompletableFuture<BatchSendResult> future = new CompletableFuture<>();
+        if (records.isEmpty()) {
+            future.complete(new BatchSendResult(null, 0, 0, 0, Collections.emptyList(), 0));
+            return future;
+        }
+        BatchCallback callback = new BatchCallback(records, future);
+        kafkaTemplate.execute(producer -> {
+            for (int i = 0; i < records.size(); i++) {
+                int index = i;
+                ProducerRecord<String, Object> record = records.get(i);
+                String topic = record.topic();
+                long start = System.nanoTime();
+                try {
+                    if (spillIfActive(record)) {
+                        callback.spilled();
+                        continue;
+                    }
+                    producer.send(record, (metadata, ex) -> {
+                        kafkaMetrics.recordSend(topic, start, ex);
+                        if (ex != null && spillOnFailure(record, ex)) {
+                            callback.spilled();
+                        } else {
+                            callback.complete(index, ex);
+                        }
+                    });
+                } catch (Exception e) {
+                    // 序列化失败、等待 buffer.memory 或元数据超时等同步异常，超时属于可重试失败
+                    kafkaMetrics.recordSend(topic, start, e);
+                    if (spillOnFailure(record, e)) {
+                        callback.spilled();
+                    } else {
+                        callback.complete(index, e);
+                    }
+                }
+            }
+            if (flush) {
+                producer.flush();
+            }
+            return null;
+        });
+        return future;
+    }
+
+    /**
+     * 溢出队列有积压时新消息直接追加到队尾，不经过 producer；顺序保证见 {@link KafkaSpillService}
+     */
+    private boolean spillIfActive(String topic, String key, Object message) {
+        return spillService != null && spillService.isActive() && spillService.spill(topic, key, message);
+    }
+
+    private boolean spillIfActive(ProducerRecord<String, Object> record) {
+        return spillService != null && spillService.isActive() && spillService.spill(record);
+    }
+
+    private boolean spillRawIfActive(ProducerRecord<byte[], byte[]> record) {
+        return spillService != null && spillService.isActive() && spillService.spillRaw(record);
+    }
+
+    /**
+     * broker 不可用导致的失败写入溢出队列，恢复后按顺序重放
      */
-    public void sendBatchMessages(String topic, java.util.List<String> messages) {
-        log.info("批量发送消息到主题 {}, 数量: {}", topic, messages.size());
+    private void spillOnFailure(String topic, String key, Object message, Throwable ex) {
+        if (spillService != null && KafkaSpillService.isRetriable(ex) && spillService.spill(topic, key, message)) {
+            log.warn("消息已写入本地溢出队列: topic={}, key={}", topic, key);
+        }
+    }
+
+    private boolean spillOnFailure(ProducerRecord<String, Object> record, Throwable ex) {
+        return spillService != null && KafkaSpillService.isRetriable(ex) && spillService.spill(record);
+    }
+
+    private void spillRawOnFailure(ProducerRecord<byte[], byte[]> record, String key, Throwable ex) {
+        if (spillService != null && KafkaSpillService.isRetriable(ex) && spillService.spillRaw(record)) {
+            log.warn("消息已写入本地溢出队列: topic={}, key={}", record.topic(), key);
+        }
+    }
 
-        for (int i = 0; i < messages.size(); i++) {
-            String message = messages.get(i);
-            String key = "batch_" + i;
-            sendMessage(topic, key, message);
+    /**
+     * 汇总一个批次内各条记录的发送结果
+     */
+    private static final class BatchCallback {
+
+        private final List<ProducerRecord<String, Object>> records;
+
+        private final CompletableFuture<BatchSendResult> future;
+
+        private final AtomicInteger remaining;
+
+        private final AtomicInteger succeeded = new AtomicInteger();
+
+        private final AtomicInteger spilled = new AtomicInteger();
+
+        private final ConcurrentLinkedQueue<BatchSendResult.Failure> failures = new ConcurrentLinkedQueue<>();
+
+        private final long startNanos = System.nanoTime();
+
+        private BatchCallback(List<ProducerRecord<String, Object>> records, CompletableFuture<BatchSendResult> future) {
+            this.records = records;
+            this.future = future;
+            this.remaining = new AtomicInteger(records.size());
+        }
+
+        /**
+         * 记录已写入溢出队列，稍后重放
+         */
+        private void spilled() {
+            spilled.incrementAndGet();
+            complete(-1, null);
+        }
+
+        private void complete(int index, Exception ex) {
+            if (ex == null) {
+                succeeded.incrementAndGet();
+            } else {
+                failures.add(new BatchSendResult.Failure(index, records.get(index).key(), ex.getMessage()));
+            }
+            if (remaining.decrementAndGet() > 0) {
+                return;
+            }
+            String topic = records.get(0).topic();
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            BatchSendResult result = new BatchSendResult(topic, records.size(), succeeded.get(), spilled.get(),
+                    new ArrayList<>(failures), elapsed);
+            if (result.isAllSucceeded()) {
+                log.info("批量消息发送完成: topic={}, count={}, spilled={}, elapsed={}ms",
+                        topic, result.getTotal(), result.getSpilled(), elapsed);
+            } else {
+                log.warn("批量消息部分发送失败: topic={}, count={}, failed={}, firstError={}",
+                        topic, result.getTotal(), result.getFailures().size(), result.getFailures().get(0).getError());
+            }
+            future.complete(result);
         }
     }
-}
\ No newline at end of file
+}
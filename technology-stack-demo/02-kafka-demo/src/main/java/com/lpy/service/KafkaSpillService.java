@@ -0,0 +1,287 @@
+package com.lpy.service;
+
+import com.lpy.config.KafkaConfig;
+import com.lpy.producer.SpillLog;
+import com.lpy.producer.SpillRecordCodec;
+import com.lpy.serde.MessageSerializer;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.RetriableException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Title: 生产者本地溢出队列，kafka.spill.enabled=true 时启用
+ *
+ * broker 不可用导致发送失败（可重试异常，如超时、连接断开）时，消息序列化后追加到本地 {@link SpillLog}，
+ * 后台线程按写入顺序重放，成功后才移动读取位置。队列有积压期间 KafkaProducerService 的所有发送方法都把新消息
+ * 直接追加到队尾、不经过 producer，也不会因 buffer.memory 写满而阻塞调用方。
+ *
+ * 顺序只是尽力而为：发送失败要等 delivery.timeout.ms 之后才回调，第一条失败写入队列时，
+ * 故障期间已交给 producer 的其他消息仍在等待超时，它们随后才追加到队列，会排在队列激活后直接写入的新消息之后。
+ * 需要严格按 key 有序的场景应由消费端按业务版本号或时间戳处理乱序。
+ *
+ * 重放是至少一次：一批中途失败时，失败记录之后已发送成功的记录会在下次重放时重复发送。
+ * 不可重试的失败（消息过大、序列化失败等）不进入队列，重放时遇到则丢弃并记录日志，避免阻塞队头。
+ *
+ * 指标：kafka.spill.appended / replayed / rejected / dropped（计数，rate 即吞吐），
+ * kafka.spill.backlog.records / backlog.bytes / segments（积压）。
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(prefix = "kafka.spill", name = "enabled", havingValue = "true")
+public class KafkaSpillService {
+
+    @Autowired
+    private KafkaConfig kafkaConfig;
+
+    @Autowired
+    private KafkaTemplate<byte[], byte[]> bytesKafkaTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${kafka.spill.dir:data/kafka-spill}")
+    private String dir;
+
+    /**
+     * 段文件大小，单条消息不能超过该大小
+     */
+    @Value("${kafka.spill.segment-bytes:67108864}")
+    private int segmentBytes;
+
+    /**
+     * 段文件数上限，磁盘占用不超过 segment-bytes * max-segments
+     */
+    @Value("${kafka.spill.max-segments:16}")
+    private int maxSegments;
+
+    @Value("${kafka.spill.replay-interval:1000}")
+    private long replayIntervalMillis;
+
+    @Value("${kafka.spill.replay-batch-size:500}")
+    private int replayBatchSize;
+
+    @Value("${kafka.spill.replay-timeout:30000}")
+    private long replayTimeoutMillis;
+
+    private final StringSerializer keySerializer = new StringSerializer();
+
+    private final MessageSerializer valueSerializer = new MessageSerializer();
+
+    private final LongAdder appended = new LongAdder();
+
+    private final LongAdder replayed = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private SpillLog spillLog;
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() throws IOException {
+        // 与 kafkaTemplate 使用相同的序列化配置，重放的记录与直接发送的一致
+        valueSerializer.configure(kafkaConfig.producerProps(), false);
+        spillLog = new SpillLog(new File(dir), segmentBytes, maxSegments);
+        bindMetrics(meterRegistry);
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "kafka-spill-replay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::replay, replayIntervalMillis, replayIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (spillLog != null) {
+            spillLog.close();
+        }
+    }
+
+    /**
+     * 队列中是否有待重放的消息
+     */
+    public boolean isActive() {
+        return !spillLog.isEmpty();
+    }
+
+    /**
+     * 序列化后追加到队列
+     *
+     * @return 队列已满或写入失败时返回 false
+     */
+    public boolean spill(String topic, String key, Object message) {
+        return spill(new ProducerRecord<>(topic, key, message));
+    }
+
+    /**
+     * 序列化后追加到队列，保留记录上的 headers
+     *
+     * @return 队列已满或写入失败时返回 false
+     */
+    public boolean spill(ProducerRecord<String, Object> record) {
+        String topic = record.topic();
+        RecordHeaders headers = new RecordHeaders(record.headers().toArray());
+        byte[] value = valueSerializer.serialize(topic, headers, record.value());
+        byte[] keyBytes = record.key() == null ? null : keySerializer.serialize(topic, record.key());
+        return append(new ProducerRecord<>(topic, null, keyBytes, value, headers), record.key());
+    }
+
+    /**
+     * 已序列化的原始字节记录直接追加到队列
+     *
+     * @return 队列已满或写入失败时返回 false
+     */
+    public boolean spillRaw(ProducerRecord<byte[], byte[]> record) {
+        return append(record, record.key() == null ? null : new String(record.key(), StandardCharsets.UTF_8));
+    }
+
+    private boolean append(ProducerRecord<byte[], byte[]> record, String key) {
+        try {
+            if (spillLog.append(SpillRecordCodec.encode(record))) {
+                appended.increment();
+                return true;
+            }
+            rejected.increment();
+            log.error("溢出队列已满，消息丢弃: topic={}, key={}, backlog={}", record.topic(), key, spillLog.getBacklogRecords());
+        } catch (IOException | RuntimeException e) {
+            rejected.increment();
+            log.error("写入溢出队列失败: topic={}, key={}, error={}", record.topic(), key, e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * 只有可重试的失败（超时、断线、leader 切换等）才写入队列，其余失败重放也不会成功
+     */
+    public static boolean isRetriable(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RetriableException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 按写入顺序重放，直到队列为空或 broker 仍不可用
+     */
+    private void replay() {
+        try {
+            List<SpillLog.Entry> entries = spillLog.peek(replayBatchSize);
+            while (!entries.isEmpty()) {
+                int done = send(entries);
+                spillLog.commit(entries.subList(0, done));
+                if (done < entries.size()) {
+                    log.warn("溢出队列重放中断，稍后重试: backlog={}", spillLog.getBacklogRecords());
+                    return;
+                }
+                entries = spillLog.peek(replayBatchSize);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // broker 不可用时 send 可能同步抛出异常（如等待元数据超时），下次调度再试
+            log.warn("溢出队列重放异常: backlog={}, error={}", spillLog.getBacklogRecords(), e.getMessage());
+        }
+    }
+
+    /**
+     * 发送一批记录并按顺序等待结果
+     *
+     * @return 从头开始连续完成（成功或被丢弃）的记录数
+     */
+    private int send(List<SpillLog.Entry> entries) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + replayTimeoutMillis;
+        // 先单独发送第一条，broker 仍不可用时不必让整批记录逐条等待元数据超时
+        if (!await(entries.get(0), bytesKafkaTemplate.send(SpillRecordCodec.decode(entries.get(0).getPayload())), deadline)) {
+            return 0;
+        }
+        List<ListenableFuture<SendResult<byte[], byte[]>>> futures = new ArrayList<>(entries.size());
+        for (int i = 1; i < entries.size(); i++) {
+            futures.add(bytesKafkaTemplate.send(SpillRecordCodec.decode(entries.get(i).getPayload())));
+        }
+        bytesKafkaTemplate.flush();
+        for (int i = 1; i < entries.size(); i++) {
+            if (!await(entries.get(i), futures.get(i - 1), deadline)) {
+                return i;
+            }
+        }
+        return entries.size();
+    }
+
+    /**
+     * @return 发送成功或因不可重试的失败被丢弃时返回 true，可重试的失败或超时返回 false
+     */
+    private boolean await(SpillLog.Entry entry, ListenableFuture<SendResult<byte[], byte[]>> future, long deadline)
+            throws InterruptedException {
+        try {
+            future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            replayed.increment();
+            return true;
+        } catch (ExecutionException e) {
+            if (isRetriable(e.getCause())) {
+                return false;
+            }
+            dropped.increment();
+            ProducerRecord<byte[], byte[]> record = SpillRecordCodec.decode(entry.getPayload());
+            log.error("溢出队列记录无法发送，已丢弃: topic={}, key={}, error={}", record.topic(),
+                    record.key() == null ? null : new String(record.key(), StandardCharsets.UTF_8),
+                    e.getCause().getMessage());
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 不实现 MeterBinder：MeterBinder 在注册表初始化时创建，而本服务依赖的生产者工厂又需要注册表，会形成循环依赖
+     */
+    private void bindMetrics(MeterRegistry registry) {
+        FunctionCounter.builder("kafka.spill.appended", appended, LongAdder::sum)
+                .description("Records written to the local spill queue").register(registry);
+        FunctionCounter.builder("kafka.spill.replayed", replayed, LongAdder::sum)
+                .description("Spilled records replayed to Kafka").register(registry);
+        FunctionCounter.builder("kafka.spill.rejected", rejected, LongAdder::sum)
+                .description("Records rejected because the spill queue was full").register(registry);
+        FunctionCounter.builder("kafka.spill.dropped", dropped, LongAdder::sum)
+                .description("Spilled records dropped on non-retriable replay failures").register(registry);
+        Gauge.builder("kafka.spill.backlog.records", this, s -> s.spillLog.getBacklogRecords())
+                .description("Records waiting for replay").register(registry);
+        Gauge.builder("kafka.spill.backlog.bytes", this, s -> s.spillLog.getBacklogBytes())
+                .description("Bytes waiting for replay").register(registry);
+        Gauge.builder("kafka.spill.segments", this, s -> s.spillLog.getSegmentCount())
+                .description("Spill segment files on disk").register(registry);
+    }
+}
@@ -0,0 +1,81 @@
+package com.lpy.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 事务消息发送，设置 spring.kafka.producer.transaction-id-prefix 后启用
+ *
+ * 同一事务内发送的消息对 read_committed 消费者要么全部可见，要么全部不可见；
+ * 事务失败时抛出异常并中止事务，调用方可整体重试，不会产生部分写入。
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(prefix = "spring.kafka.producer", name = "transaction-id-prefix")
+public class KafkaTransactionalService {
+
+    @Autowired
+    @Qualifier("transactionalKafkaTemplate")
+    private KafkaTemplate<String, Object> transactionalKafkaTemplate;
+
+    /**
+     * 在一个事务中发送一批消息
+     *
+     * @param topic 主题
+     * @param messages 消息列表
+     * @return 发送的消息数
+     */
+    public int sendInTransaction(String topic, List<?> messages) {
+        Integer count = transactionalKafkaTemplate.executeInTransaction(operations -> {
+            for (Object message : messages) {
+                operations.send(topic, message);
+            }
+            return messages.size();
+        });
+        log.info("事务消息发送完成: topic={}, count={}", topic, count);
+        return count;
+    }
+
+    /**
+     * 读-处理-写：处理结果和消费位移在同一事务中提交，用于自行管理 Consumer 的场景。
+     * 事务提交前位移不会生效，失败后重新消费时不会重复产生结果
+     *
+     * @param records 处理结果
+     * @param offsets 已处理记录的下一个位移
+     * @param groupMetadata 消费者的 consumer.groupMetadata()
+     */
+    public void sendAndCommitOffsets(List<ProducerRecord<String, Object>> records,
+                                     Map<TopicPartition, OffsetAndMetadata> offsets,
+                                     ConsumerGroupMetadata groupMetadata) {
+        transactionalKafkaTemplate.executeInTransaction(operations -> {
+            for (ProducerRecord<String, Object> record : records) {
+                operations.send(record);
+            }
+            operations.sendOffsetsToTransaction(offsets, groupMetadata);
+            return null;
+        });
+    }
+
+    /**
+     * 由容器管理事务的读-处理-写示例：容器在拉取后开启事务，这里的发送自动加入该事务，
+     * 容器在提交前把消费位移通过 sendOffsetsToTransaction 加入事务
+     */
+    @KafkaListener(topics = "tx-input-topic", groupId = "demo-group-tx",
+            containerFactory = "transactionalKafkaListenerContainerFactory")
+    public void transform(ConsumerRecord<String, String> record) {
+        transactionalKafkaTemplate.send("tx-output-topic", record.key(), record.value().toUpperCase());
+    }
+}
@@ -0,0 +1,85 @@
+package com.lpy.service;
+
+import com.lpy.entity.SenderStats;
+import com.lpy.streams.SenderStatsTopology;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StoreQueryParameters;
+import org.apache.kafka.streams.errors.InvalidStateStoreException;
+import org.apache.kafka.streams.kstream.Windowed;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.QueryableStoreTypes;
+import org.apache.kafka.streams.state.ReadOnlyWindowStore;
+import org.apache.kafka.streams.state.WindowStoreIterator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 发送者窗口统计的交互式查询，直接读取本实例的 RocksDB 状态存储，不经过网络和数据库
+ *
+ * 多实例部署时每个实例只持有部分 sender 的分区，查不到的 sender 需要按 queryMetadataForKey 路由到其他实例。
+ * 启动恢复或 rebalance 期间存储不可查询，抛出 InvalidStateStoreException，调用方稍后重试。
+ */
+@Service
+@ConditionalOnProperty(prefix = "kafka.streams", name = "enabled", havingValue = "true")
+public class SenderStatsQueryService {
+
+    @Autowired
+    private StreamsBuilderFactoryBean streamsBuilderFactoryBean;
+
+    @Autowired
+    private SenderStatsTopology senderStatsTopology;
+
+    /**
+     * 查询一个发送者在时间范围内的各窗口统计，按窗口开始时间升序
+     *
+     * @param sender 发送者
+     * @param from 窗口开始时间下限（含）
+     * @param to 窗口开始时间上限（含）
+     */
+    public List<SenderStats> query(String sender, Instant from, Instant to) {
+        List<SenderStats> result = new ArrayList<>();
+        try (WindowStoreIterator<SenderStats> iterator = store().fetch(sender, from, to)) {
+            while (iterator.hasNext()) {
+                KeyValue<Long, SenderStats> entry = iterator.next();
+                result.add(withWindow(entry.value, entry.key));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 查询所有发送者在时间范围内的窗口统计
+     */
+    public List<SenderStats> queryAll(Instant from, Instant to) {
+        List<SenderStats> result = new ArrayList<>();
+        try (KeyValueIterator<Windowed<String>, SenderStats> iterator = store().fetchAll(from, to)) {
+            while (iterator.hasNext()) {
+                KeyValue<Windowed<String>, SenderStats> entry = iterator.next();
+                result.add(withWindow(entry.value, entry.key.window().start()));
+            }
+        }
+        return result;
+    }
+
+    private ReadOnlyWindowStore<String, SenderStats> store() {
+        KafkaStreams kafkaStreams = streamsBuilderFactoryBean.getKafkaStreams();
+        if (kafkaStreams == null) {
+            throw new InvalidStateStoreException("Kafka Streams 未启动");
+        }
+        return kafkaStreams.store(StoreQueryParameters.fromNameAndType(
+                SenderStatsTopology.STORE_NAME, QueryableStoreTypes.<String, SenderStats>windowStore()));
+    }
+
+    private SenderStats withWindow(SenderStats stats, long windowStart) {
+        stats.setWindowStart(windowStart);
+        stats.setWindowEnd(windowStart + senderStatsTopology.getWindowSize().toMillis());
+        return stats;
+    }
+}
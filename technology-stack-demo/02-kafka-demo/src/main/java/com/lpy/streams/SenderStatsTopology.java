@@ -0,0 +1,79 @@
+package com.lpy.streams;
+
+import com.lpy.entity.Message;
+import com.lpy.entity.SenderStats;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.Grouped;
+import org.apache.kafka.streams.kstream.KTable;
+import org.apache.kafka.streams.kstream.Materialized;
+import org.apache.kafka.streams.kstream.TimeWindows;
+import org.apache.kafka.streams.kstream.Windowed;
+import org.apache.kafka.streams.state.WindowStore;
+import org.springframework.kafka.support.serializer.JsonSerde;
+
+import java.time.Duration;
+import java.util.Collections;
+
+/**
+ * @Title: 按发送者的窗口统计拓扑
+ *
+ * object-topic 的 Message 按 sender 重新分区，按 record 时间划分滚动窗口，聚合为 {@link SenderStats}：
+ * 1. 状态存在 RocksDB 窗口存储 {@link #STORE_NAME} 中，开启 changelog（应用 id-存储名-changelog），
+ *    实例重启或分区迁移后从 changelog 恢复；
+ * 2. 迟到超过 grace 的记录丢弃，窗口保留 retention 后过期清理；
+ * 3. 非 Message 的值（如误发的字符串）直接过滤，反序列化失败由 default.deserialization.exception.handler 处理。
+ */
+public class SenderStatsTopology {
+
+    public static final String STORE_NAME = "sender-stats-store";
+
+    private final String topic;
+
+    private final Serde<Object> messageSerde;
+
+    private final Duration windowSize;
+
+    private final Duration grace;
+
+    private final Duration retention;
+
+    public SenderStatsTopology(String topic, Serde<Object> messageSerde,
+                               Duration windowSize, Duration grace, Duration retention) {
+        this.topic = topic;
+        this.messageSerde = messageSerde;
+        this.windowSize = windowSize;
+        this.grace = grace;
+        // 窗口存储的保留时间不能小于窗口大小加 grace
+        this.retention = retention.compareTo(windowSize.plus(grace)) < 0 ? windowSize.plus(grace) : retention;
+    }
+
+    public KTable<Windowed<String>, SenderStats> build(StreamsBuilder builder) {
+        return builder.stream(topic, Consumed.with(Serdes.String(), messageSerde))
+                .filter((key, value) -> value instanceof Message && ((Message) value).getSender() != null)
+                .groupBy((key, value) -> ((Message) value).getSender(),
+                        Grouped.with("sender", Serdes.String(), messageSerde))
+                .windowedBy(TimeWindows.ofSizeAndGrace(windowSize, grace))
+                .aggregate(SenderStats::new,
+                        (sender, value, stats) -> stats.add((Message) value),
+                        Materialized.<String, SenderStats, WindowStore<Bytes, byte[]>>as(STORE_NAME)
+                                .withKeySerde(Serdes.String())
+                                .withValueSerde(statsSerde())
+                                .withRetention(retention)
+                                .withLoggingEnabled(Collections.emptyMap()));
+    }
+
+    public Duration getWindowSize() {
+        return windowSize;
+    }
+
+    /**
+     * 统计值不写类型头，状态存储和 changelog 只保存 JSON 本身
+     */
+    public static Serde<SenderStats> statsSerde() {
+        return new JsonSerde<>(SenderStats.class).noTypeInfo();
+    }
+}
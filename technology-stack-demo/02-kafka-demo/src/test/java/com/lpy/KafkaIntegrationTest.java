@@ -1,24 +1,37 @@
 package com.lpy;
 
 
+import com.lpy.entity.BatchSendResult;
 import com.lpy.entity.Message;
+import com.lpy.service.DeadLetterReplayService;
 import com.lpy.service.KafkaProducerService;
+import com.lpy.service.KafkaTransactionalService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.kafka.listener.KafkaMessageListenerContainer;
 import org.springframework.kafka.listener.MessageListener;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.kafka.test.EmbeddedKafkaBroker;
 import org.springframework.kafka.test.context.EmbeddedKafka;
 import org.springframework.kafka.test.utils.ContainerTestUtils;
 import org.springframework.kafka.test.utils.KafkaTestUtils;
 import org.springframework.test.context.TestPropertySource;
 
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -29,20 +42,39 @@ import static org.junit.jupiter.api.Assertions.*;
 @SpringBootTest
 @EmbeddedKafka(
         partitions = 1,
-        brokerProperties = {"listeners=PLAINTEXT://localhost:9092", "port=9092"}
+        brokerProperties = {"listeners=PLAINTEXT://localhost:9092", "port=9092",
+                "transaction.state.log.replication.factor=1", "transaction.state.log.min.isr=1"}
 )
 @TestPropertySource(properties = {
         "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
-        "spring.kafka.consumer.group-id=test-group"
+        "spring.kafka.consumer.group-id=test-group",
+        "spring.kafka.producer.transaction-id-prefix=test-tx-",
+        "kafka.retry.attempts=3",
+        "kafka.retry.delay=100",
+        "kafka.retry.max-delay=200",
+        "kafka.spill.enabled=true",
+        "kafka.spill.dir=target/kafka-spill"
 })
 public class KafkaIntegrationTest {
 
     @Autowired
     private KafkaProducerService producerService;
 
+    @Autowired
+    private KafkaTransactionalService transactionalService;
+
+    @Autowired
+    private DeadLetterReplayService deadLetterReplayService;
+
+    @Autowired
+    private KafkaListenerEndpointRegistry registry;
+
     @Autowired
     private EmbeddedKafkaBroker embeddedKafkaBroker;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Test
     public void testSendAndReceiveMessage() throws InterruptedException {
         String topic = "test-integration-topic";
@@ -97,4 +129,82 @@ public class KafkaIntegrationTest {
         // 批量发送消息
         assertDoesNotThrow(() -> producerService.sendBatchMessages(topic, messages));
     }
+
+    @Test
+    public void testSendBatchResult() throws Exception {
+        List<Object> messages = Arrays.asList("批量消息1", new Message("批量对象消息", "测试发送者", "test-batch-topic"), "批量消息3");
+
+        BatchSendResult result = producerService.sendBatch("test-batch-topic", messages, true).get(10, TimeUnit.SECONDS);
+        assertEquals(3, result.getTotal());
+        assertTrue(result.isAllSucceeded());
+        assertTrue(result.getFailures().isEmpty());
+
+        Timer sendTimer = meterRegistry.find("kafka.producer.send")
+                .tags("topic", "test-batch-topic", "result", "success").timer();
+        assertNotNull(sendTimer);
+        assertTrue(sendTimer.count() >= 3);
+    }
+
+    @Test
+    public void testSendInTransaction() {
+        String topic = "test-tx-topic";
+        Map<String, Object> consumerProps = KafkaTestUtils.consumerProps("test-tx-group", "false", embeddedKafkaBroker);
+        consumerProps.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+        consumerProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        consumerProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+
+        assertEquals(2, transactionalService.sendInTransaction(topic, Arrays.asList("事务消息1", "事务消息2")));
+
+        try (Consumer<String, String> consumer = new DefaultKafkaConsumerFactory<String, String>(consumerProps).createConsumer()) {
+            consumer.subscribe(Collections.singletonList(topic));
+            int received = 0;
+            long deadline = System.currentTimeMillis() + 10000;
+            while (received < 2 && System.currentTimeMillis() < deadline) {
+                received += consumer.poll(Duration.ofMillis(500)).count();
+            }
+            assertEquals(2, received);
+        }
+    }
+
+    @Test
+    public void testRetryToDeadLetterAndReplay() throws Exception {
+        // error-topic 从 latest 开始消费，先等监听器分配到分区
+        for (MessageListenerContainer container : registry.getListenerContainers()) {
+            String[] topics = container.getContainerProperties().getTopics();
+            if (topics != null && Arrays.asList(topics).contains("error-topic")) {
+                ContainerTestUtils.waitForAssignment(container, embeddedKafkaBroker.getPartitionsPerTopic());
+            }
+        }
+        producerService.sendMessage("error-topic", "error-retry-test");
+
+        ConsumerRecord<String, String> deadLetter = pollOne("error-topic.DLT", "test-dlt-group");
+        assertNotNull(deadLetter);
+        assertNotNull(deadLetter.headers().lastHeader(KafkaHeaders.EXCEPTION_FQCN));
+        assertEquals("error-topic", DeadLetterReplayService.headerAsString(deadLetter.headers(), KafkaHeaders.ORIGINAL_TOPIC));
+
+        // 重放到单独的主题，避免再次进入重试
+        assertEquals(1, deadLetterReplayService.replay("error-topic.DLT", "test-replay-topic", 10));
+        ConsumerRecord<String, String> replayed = pollOne("test-replay-topic", "test-replay-group");
+        assertNotNull(replayed);
+        assertEquals(deadLetter.value(), replayed.value());
+        assertNull(replayed.headers().lastHeader(KafkaHeaders.EXCEPTION_FQCN));
+
+        assertEquals(0, deadLetterReplayService.replay("error-topic.DLT", "test-replay-topic", 10));
+    }
+
+    private ConsumerRecord<String, String> pollOne(String topic, String group) {
+        Map<String, Object> consumerProps = KafkaTestUtils.consumerProps(group, "false", embeddedKafkaBroker);
+        consumerProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        consumerProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        try (Consumer<String, String> consumer = new DefaultKafkaConsumerFactory<String, String>(consumerProps).createConsumer()) {
+            consumer.subscribe(Collections.singletonList(topic));
+            long deadline = System.currentTimeMillis() + 30000;
+            while (System.currentTimeMillis() < deadline) {
+                for (ConsumerRecord<String, String> record : consumer.poll(Duration.ofMillis(500))) {
+                    return record;
+                }
+            }
+        }
+        return null;
+    }
 }
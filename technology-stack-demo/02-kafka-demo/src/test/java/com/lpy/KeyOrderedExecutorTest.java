@@ -0,0 +1,68 @@
+package com.lpy;
+
+import com.lpy.consumer.KeyOrderedExecutor;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 同 key 顺序执行、不同 key 并行执行
+ */
+public class KeyOrderedExecutorTest {
+
+    @Test
+    public void shouldKeepOrderPerKey() throws InterruptedException {
+        assertOrdered(new KeyOrderedExecutor("test-lane", 4, false));
+    }
+
+    @Test
+    public void shouldKeepOrderPerKeyWithVirtualThreads() throws InterruptedException {
+        // 低于 JDK 21 时退回固定通道，行为一致
+        assertOrdered(new KeyOrderedExecutor("test-virtual", 4, true));
+    }
+
+    private void assertOrdered(KeyOrderedExecutor executor) throws InterruptedException {
+        int keys = 8;
+        int perKey = 50;
+        Map<String, List<Integer>> seen = new ConcurrentHashMap<>();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(keys * perKey);
+
+        for (int i = 0; i < perKey; i++) {
+            for (int k = 0; k < keys; k++) {
+                String key = "key-" + k;
+                int seq = i;
+                executor.execute(key, () -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    seen.computeIfAbsent(key, x -> Collections.synchronizedList(new ArrayList<>())).add(seq);
+                    try {
+                        Thread.sleep(1);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                    done.countDown();
+                });
+            }
+        }
+
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        for (List<Integer> sequence : seen.values()) {
+            for (int i = 0; i < perKey; i++) {
+                assertEquals(i, sequence.get(i).intValue());
+            }
+        }
+        assertTrue(maxRunning.get() > 1, "不同 key 应并行执行");
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,43 @@
+package com.lpy;
+
+import com.lpy.consumer.ListenerBackpressure;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 在途记录数达到高水位时暂停容器，降到低水位时恢复
+ */
+public class ListenerBackpressureTest {
+
+    @Test
+    public void shouldPauseAtHighAndResumeAtLowWatermark() {
+        KafkaListenerEndpointRegistry registry = mock(KafkaListenerEndpointRegistry.class);
+        MessageListenerContainer container = mock(MessageListenerContainer.class);
+        when(registry.getListenerContainer("test")).thenReturn(container);
+        ListenerBackpressure backpressure = new ListenerBackpressure(registry, "test", 4, 1);
+
+        for (int i = 0; i < 3; i++) {
+            backpressure.acquire();
+        }
+        verify(container, never()).pause();
+
+        backpressure.acquire();
+        backpressure.acquire();
+        assertTrue(backpressure.isPaused());
+        verify(container, times(1)).pause();
+
+        for (int i = 0; i < 3; i++) {
+            backpressure.release();
+        }
+        verify(container, never()).resume();
+
+        backpressure.release();
+        assertFalse(backpressure.isPaused());
+        assertEquals(1, backpressure.getInFlight());
+        verify(container, times(1)).resume();
+    }
+}
@@ -0,0 +1,61 @@
+package com.lpy;
+
+import com.lpy.entity.Message;
+import com.lpy.serde.AvroMessageCodec;
+import com.lpy.serde.MessageDeserializer;
+import com.lpy.serde.MessageSerializer;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Avro 与 JSON 两种格式的序列化，以及消费端的格式识别
+ */
+public class MessageSerdeTest {
+
+    @Test
+    public void shouldRoundTripBothFormats() {
+        Message message = new Message("二进制编码测试", "tester", "object-topic");
+        // Avro 时间戳精度为毫秒
+        message.setTimestamp(message.getTimestamp().truncatedTo(ChronoUnit.MILLIS));
+
+        byte[] avro = serializer("avro").serialize("object-topic", new RecordHeaders(), message);
+        byte[] json = serializer("json").serialize("object-topic", new RecordHeaders(), message);
+        assertTrue(AvroMessageCodec.isAvro(avro));
+        assertFalse(AvroMessageCodec.isAvro(json));
+        assertTrue(avro.length < json.length);
+
+        MessageDeserializer deserializer = new MessageDeserializer();
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
+        configs.put(JsonDeserializer.VALUE_DEFAULT_TYPE, Message.class.getName());
+        deserializer.configure(configs, false);
+
+        Message fromAvro = (Message) deserializer.deserialize("object-topic", new RecordHeaders(), avro);
+        assertEquals(message, fromAvro);
+        // JSON 的时间格式只保留到秒，只比较其它字段
+        Message fromJson = (Message) deserializer.deserialize("object-topic", new RecordHeaders(), json);
+        assertEquals(message.getId(), fromJson.getId());
+        assertEquals(message.getContent(), fromJson.getContent());
+    }
+
+    @Test
+    public void shouldKeepStringsAsJson() {
+        byte[] data = serializer("avro").serialize("test-topic", new RecordHeaders(), "plain");
+        assertFalse(AvroMessageCodec.isAvro(data));
+    }
+
+    private MessageSerializer serializer(String format) {
+        MessageSerializer serializer = new MessageSerializer();
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(MessageSerializer.FORMAT_CONFIG, format);
+        serializer.configure(configs, false);
+        return serializer;
+    }
+}
@@ -0,0 +1,115 @@
+package com.lpy;
+
+import com.lpy.consumer.BatchProcessResult;
+import com.lpy.consumer.ParallelBatchProcessor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 批内按 key 分组并行处理，失败只影响同 key 的后续记录，重新投递时跳过已成功的记录
+ */
+public class ParallelBatchProcessorTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    private final ParallelBatchProcessor processor = new ParallelBatchProcessor(executor, 10000, 10000);
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldStopFailedKeyAndSkipCompletedOnRedelivery() {
+        List<ConsumerRecord<String, String>> batch = Arrays.asList(
+                record(0, "a", "a0"), record(1, "b", "b1"), record(2, "a", "bad"),
+                record(3, "b", "b3"), record(4, "a", "a4"));
+        List<String> processed = new CopyOnWriteArrayList<>();
+
+        BatchProcessResult result = processor.process(batch, r -> {
+            if (r.value().equals("bad")) {
+                throw new IllegalStateException("bad record");
+            }
+            processed.add(r.value());
+        });
+
+        assertEquals(2, result.getGroups());
+        assertEquals(BatchProcessResult.Outcome.FAILED, result.getOutcome(2));
+        assertEquals(BatchProcessResult.Outcome.NOT_ATTEMPTED, result.getOutcome(4));
+        assertEquals(2, result.getFirstIncompleteIndex());
+        assertTrue(processed.containsAll(Arrays.asList("a0", "b1", "b3")));
+        assertFalse(processed.contains("a4"));
+
+        // 模拟 BatchListenerFailedException 之后从失败记录开始重新投递
+        processed.clear();
+        BatchProcessResult retry = processor.process(new ArrayList<>(batch.subList(2, 5)), r -> processed.add(r.value()));
+
+        assertTrue(retry.isAllCompleted());
+        assertEquals(BatchProcessResult.Outcome.SKIPPED, retry.getOutcome(1));
+        assertEquals(Arrays.asList("bad", "a4"), processed);
+    }
+
+    @Test
+    public void shouldStopStartingRecordsAfterTimeoutAndWaitForRunningOnes() {
+        ParallelBatchProcessor slowProcessor = new ParallelBatchProcessor(executor, 100, 10000);
+        List<ConsumerRecord<String, String>> batch = Arrays.asList(
+                record(0, "a", "a0"), record(1, "a", "a1"), record(2, "a", "a2"));
+        List<String> processed = new CopyOnWriteArrayList<>();
+
+        BatchProcessResult result = slowProcessor.process(batch, r -> {
+            sleep(300);
+            processed.add(r.value());
+        });
+
+        // 第一条在超时后仍执行完成，之后的记录不再开始
+        assertEquals(BatchProcessResult.Outcome.SUCCEEDED, result.getOutcome(0));
+        assertEquals(BatchProcessResult.Outcome.NOT_ATTEMPTED, result.getOutcome(1));
+        assertEquals(BatchProcessResult.Outcome.NOT_ATTEMPTED, result.getOutcome(2));
+        assertEquals(Arrays.asList("a0"), processed);
+        sleep(500);
+        assertEquals(Arrays.asList("a0"), processed);
+    }
+
+    @Test
+    public void shouldReportStuckRecordsAsNotAttemptedAfterDrainTimeout() {
+        ParallelBatchProcessor stuckProcessor = new ParallelBatchProcessor(executor, 100, 100);
+        List<ConsumerRecord<String, String>> batch = Arrays.asList(
+                record(0, "a", "a0"), record(1, "b", "stuck"), record(2, "b", "b2"));
+
+        BatchProcessResult result = stuckProcessor.process(batch, r -> {
+            if (r.value().equals("stuck")) {
+                sleep(2000);
+            }
+        });
+
+        // 不会一直等待卡住的记录，超时加等待时间后返回
+        assertTrue(result.getElapsedMillis() < 1000, "elapsed=" + result.getElapsedMillis());
+        assertEquals(BatchProcessResult.Outcome.SUCCEEDED, result.getOutcome(0));
+        assertEquals(BatchProcessResult.Outcome.NOT_ATTEMPTED, result.getOutcome(1));
+        assertEquals(BatchProcessResult.Outcome.NOT_ATTEMPTED, result.getOutcome(2));
+        assertEquals(1, result.getFirstIncompleteIndex());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private ConsumerRecord<String, String> record(long offset, String key, String value) {
+        return new ConsumerRecord<>("batch-topic", 0, offset, key, value);
+    }
+}
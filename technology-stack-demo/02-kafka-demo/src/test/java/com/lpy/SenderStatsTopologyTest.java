@@ -0,0 +1,76 @@
+package com.lpy;
+
+import com.lpy.entity.Message;
+import com.lpy.entity.SenderStats;
+import com.lpy.serde.MessageSerde;
+import com.lpy.streams.SenderStatsTopology;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.state.WindowStore;
+import org.apache.kafka.streams.state.WindowStoreIterator;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 按发送者窗口统计拓扑：窗口划分、聚合结果以及非 Message 值的过滤
+ */
+public class SenderStatsTopologyTest {
+
+    @Test
+    public void shouldAggregatePerSenderAndWindow() throws Exception {
+        MessageSerde messageSerde = new MessageSerde();
+        messageSerde.configure(Collections.singletonMap(JsonDeserializer.TRUSTED_PACKAGES, "*"), false);
+        StreamsBuilder builder = new StreamsBuilder();
+        new SenderStatsTopology("object-topic", messageSerde,
+                Duration.ofMinutes(1), Duration.ofSeconds(10), Duration.ofHours(1)).build(builder);
+
+        Properties props = new Properties();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, "sender-stats-test");
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        props.put(StreamsConfig.STATE_DIR_CONFIG, Files.createTempDirectory("sender-stats").toString());
+
+        try (TopologyTestDriver driver = new TopologyTestDriver(builder.build(), props)) {
+            TestInputTopic<String, Object> input = driver.createInputTopic("object-topic",
+                    Serdes.String().serializer(), messageSerde.serializer());
+            Instant window = Instant.parse("2026-01-01T00:00:00Z");
+
+            input.pipeInput("1", new Message("hello", "alice", "object-topic"), window.plusSeconds(1));
+            input.pipeInput("2", new Message("hello world", "alice", "object-topic"), window.plusSeconds(30));
+            input.pipeInput("3", new Message("hi", "bob", "object-topic"), window.plusSeconds(40));
+            input.pipeInput("4", "不是 Message 的值", window.plusSeconds(41));
+            input.pipeInput("5", new Message("next", "alice", "object-topic"), window.plusSeconds(70));
+
+            WindowStore<String, SenderStats> store = driver.getWindowStore(SenderStatsTopology.STORE_NAME);
+            List<KeyValue<Long, SenderStats>> alice = new ArrayList<>();
+            try (WindowStoreIterator<SenderStats> iterator = store.fetch("alice", window, window.plusSeconds(120))) {
+                iterator.forEachRemaining(alice::add);
+            }
+
+            assertEquals(2, alice.size());
+            assertEquals(window.toEpochMilli(), alice.get(0).key.longValue());
+            assertEquals(2, alice.get(0).value.getCount());
+            assertEquals(16, alice.get(0).value.getTotalContentLength());
+            assertEquals(11, alice.get(0).value.getMaxContentLength());
+            assertEquals(1, alice.get(1).value.getCount());
+
+            try (WindowStoreIterator<SenderStats> iterator = store.fetch("bob", window, window.plusSeconds(120))) {
+                assertEquals(1, iterator.next().value.getCount());
+                assertFalse(iterator.hasNext());
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.lpy;
+
+import com.lpy.producer.SpillLog;
+import com.lpy.producer.SpillRecordCodec;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 溢出队列：顺序读取、重启后从 checkpoint 继续、段文件滚动与磁盘上限
+ */
+public class SpillLogTest {
+
+    @TempDir
+    File dir;
+
+    @Test
+    public void shouldReplayInOrderAndResumeAfterReopen() throws Exception {
+        try (SpillLog spillLog = new SpillLog(dir, 4096, 4)) {
+            for (int i = 0; i < 5; i++) {
+                assertTrue(spillLog.append(bytes("消息" + i)));
+            }
+            List<SpillLog.Entry> entries = spillLog.peek(2);
+            assertEquals("消息0", text(entries.get(0)));
+            assertEquals("消息1", text(entries.get(1)));
+            spillLog.commit(entries);
+            assertEquals(3, spillLog.getBacklogRecords());
+        }
+
+        try (SpillLog spillLog = new SpillLog(dir, 4096, 4)) {
+            assertEquals(3, spillLog.getBacklogRecords());
+            assertTrue(spillLog.append(bytes("消息5")));
+            List<SpillLog.Entry> entries = spillLog.peek(10);
+            assertEquals(4, entries.size());
+            assertEquals("消息2", text(entries.get(0)));
+            assertEquals("消息5", text(entries.get(3)));
+            spillLog.commit(entries);
+            assertTrue(spillLog.isEmpty());
+        }
+    }
+
+    @Test
+    public void shouldBoundDiskUsageAndDeleteReadSegments() throws Exception {
+        try (SpillLog spillLog = new SpillLog(dir, 64, 2)) {
+            byte[] payload = new byte[24];
+            int appended = 0;
+            while (spillLog.append(payload)) {
+                appended++;
+            }
+            // 每段 64 字节放 2 条 32 字节的记录，最多 2 个段
+            assertEquals(4, appended);
+            assertEquals(2, spillLog.getSegmentCount());
+
+            spillLog.commit(spillLog.peek(3));
+            assertEquals(1, spillLog.getSegmentCount());
+            assertEquals(1, spillLog.getBacklogRecords());
+            assertTrue(spillLog.append(payload));
+            assertEquals(2, spillLog.peek(10).size());
+        }
+    }
+
+    @Test
+    public void shouldRoundTripRecordWithHeaders() {
+        RecordHeaders headers = new RecordHeaders();
+        headers.add("__TypeId__", bytes("com.lpy.entity.Message"));
+        ProducerRecord<byte[], byte[]> record = new ProducerRecord<>("object-topic", null, (byte[]) null, bytes("{}"), headers);
+
+        ProducerRecord<byte[], byte[]> decoded = SpillRecordCodec.decode(SpillRecordCodec.encode(record));
+        assertEquals("object-topic", decoded.topic());
+        assertNull(decoded.key());
+        assertEquals("{}", new String(decoded.value(), StandardCharsets.UTF_8));
+        assertEquals("com.lpy.entity.Message",
+                new String(decoded.headers().lastHeader("__TypeId__").value(), StandardCharsets.UTF_8));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(SpillLog.Entry entry) {
+        return new String(entry.getPayload(), StandardCharsets.UTF_8);
+    }
+}
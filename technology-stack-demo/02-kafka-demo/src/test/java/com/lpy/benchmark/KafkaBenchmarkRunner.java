@@ -0,0 +1,29 @@
+package com.lpy.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 基准测试入口
+ *
+ * mvn test-compile exec:exec -P benchmark -pl 02-kafka-demo [-Dbenchmark.include=MessageSerdeBenchmark.serialize]
+ *
+ * 完整结果写入 target/jmh-result.json，可导入 https://jmh.morethan.io 对比。
+ */
+public class KafkaBenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : KafkaBenchmarkRunner.class.getPackage().getName() + ".*";
+        Options options = new OptionsBuilder()
+                .include(include)
+                .jvmArgsAppend("-Xmx1g")
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh-result.json")
+                .build();
+        new Runner(options).run();
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.lpy.benchmark;
+
+import com.lpy.entity.Message;
+import com.lpy.serde.MessageDeserializer;
+import com.lpy.serde.MessageSerializer;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Message 值编解码：JSON（JsonSerializer/JsonDeserializer，带类型头）与 Avro 单对象编码对比
+ *
+ * 吞吐量即每秒可处理的记录数；每种组合的序列化后字节数在 Setup 中打印。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageSerdeBenchmark {
+
+    @Param({"json", "avro"})
+    public String format;
+
+    /**
+     * 消息内容的字符数
+     */
+    @Param({"32", "1024"})
+    public int contentSize;
+
+    private MessageSerializer serializer;
+
+    private MessageDeserializer deserializer;
+
+    private Message message;
+
+    private byte[] payload;
+
+    private RecordHeaders headers;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Map<String, Object> configs = new HashMap<>();
+        configs.put(MessageSerializer.FORMAT_CONFIG, format);
+        configs.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
+        serializer = new MessageSerializer();
+        serializer.configure(configs, false);
+        deserializer = new MessageDeserializer();
+        deserializer.configure(configs, false);
+
+        char[] content = new char[contentSize];
+        Arrays.fill(content, 'x');
+        message = new Message(new String(content), "benchmark-sender", "object-topic");
+
+        headers = new RecordHeaders();
+        payload = serializer.serialize("object-topic", headers, message);
+        System.out.printf("%n[payload] format=%s contentSize=%d bytes=%d%n", format, contentSize, payload.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize("object-topic", new RecordHeaders(), message);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        // JSON 依赖序列化时写入的类型头，JsonDeserializer 读取后会删除，每次复制一份
+        return deserializer.deserialize("object-topic", new RecordHeaders(headers.toArray()), payload);
+    }
+}